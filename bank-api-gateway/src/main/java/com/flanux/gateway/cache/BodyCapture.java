@@ -0,0 +1,56 @@
+package com.flanux.gateway.cache;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.util.function.Consumer;
+
+/**
+ * Passes a response body through chunk by chunk while keeping a copy of it, so filters that
+ * remember responses never hold back or aggregate the stream being sent to the client.
+ * Copying stops once the body grows past the limit, and the callback only runs for bodies
+ * that completed within it.
+ *
+ * <p>This keeps the stream intact only as far as these filters are concerned: paths hedged by
+ * {@link com.flanux.gateway.filter.HedgingFilter} are buffered there before they reach the
+ * client. Hedging is limited to configured single-resource paths, so list endpoints such as
+ * /api/accounts and /api/customers/search stream end to end.
+ */
+public final class BodyCapture {
+
+    private BodyCapture() {
+    }
+
+    public static Flux<DataBuffer> tee(Publisher<? extends DataBuffer> body, int maxBytes, Consumer<byte[]> onComplete) {
+        State state = new State();
+        return Flux.<DataBuffer>from(body)
+                .doOnNext(buffer -> state.copy(buffer, maxBytes))
+                .doOnComplete(() -> {
+                    if (state.copy != null) {
+                        onComplete.accept(state.copy.toByteArray());
+                    }
+                });
+    }
+
+    private static final class State {
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        void copy(DataBuffer buffer, int maxBytes) {
+            if (copy == null) {
+                return;
+            }
+            int length = buffer.readableByteCount();
+            if (copy.size() + length > maxBytes) {
+                copy = null;
+                return;
+            }
+            byte[] chunk = new byte[length];
+            int position = buffer.readPosition();
+            buffer.read(chunk);
+            buffer.readPosition(position);
+            copy.write(chunk, 0, length);
+        }
+    }
+}
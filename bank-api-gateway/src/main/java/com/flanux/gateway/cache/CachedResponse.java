@@ -0,0 +1,56 @@
+package com.flanux.gateway.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of a downstream response that can be replayed to a client.
+ * Kept as a plain bean so it can be stored as JSON in the shared Redis tier.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedResponse {
+    private int status;
+    private Map<String, List<String>> headers;
+    private byte[] body;
+    private long storedAtMillis;
+    private long expiresAtMillis;
+
+    public static CachedResponse of(HttpStatusCode status, HttpHeaders headers, byte[] body, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        return new CachedResponse(status.value(), copyHeaders(headers), body, now, now + ttlMillis);
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+
+    /**
+     * Replays this snapshot onto a response that has not been committed yet.
+     */
+    public Mono<Void> writeTo(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatusCode.valueOf(status));
+        response.getHeaders().putAll(headers);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    private static Map<String, List<String>> copyHeaders(HttpHeaders headers) {
+        Map<String, List<String>> copy = new HashMap<>();
+        headers.forEach((name, values) -> {
+            if (!HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name) && !name.startsWith("X-Cache")) {
+                copy.put(name, List.copyOf(values));
+            }
+        });
+        return copy;
+    }
+}
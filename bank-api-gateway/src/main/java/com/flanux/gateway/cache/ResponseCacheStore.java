@@ -0,0 +1,202 @@
+package com.flanux.gateway.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Two-tier response cache: a bounded in-memory LRU in front of an optional shared Redis tier.
+ * Redis failures are logged and treated as misses so the gateway never fails because of the cache.
+ *
+ * <p>Each resource prefix has a generation number and invalidating the prefix bumps it. Redis keys
+ * carry the generation, so older entries simply stop being read and expire on their own TTL instead
+ * of being scanned for. With Redis, the generation is an INCR counter and each bump is published so
+ * every gateway instance drops its local entries for that prefix.
+ */
+@Slf4j
+public class ResponseCacheStore {
+
+    private static final String REDIS_PREFIX = "gw:cache:";
+    private static final String GENERATION_PREFIX = "gw:cache-gen:";
+    private static final String INVALIDATION_CHANNEL = "gw:cache-invalidate";
+
+    private final Map<String, Entry> local;
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+    private final ReactiveStringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+
+    private record Entry(long generation, CachedResponse response) {
+    }
+
+    public ResponseCacheStore(int maxSize, ReactiveStringRedisTemplate redis, ObjectMapper objectMapper) {
+        this.local = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        if (redis != null) {
+            subscribe();
+        }
+    }
+
+    /**
+     * Current generation of the prefix. Pass it to {@link #get} and {@link #put} so a response
+     * fetched before an invalidation is never stored after it.
+     */
+    public Mono<Long> generation(String prefix) {
+        Long known = generations.get(prefix);
+        if (known != null || redis == null) {
+            return Mono.just(known != null ? known : 0L);
+        }
+
+        // First request for this prefix on this instance: start from the shared counter
+        return redis.opsForValue().get(GENERATION_PREFIX + prefix)
+                .map(Long::parseLong)
+                .defaultIfEmpty(0L)
+                .doOnNext(generation -> advance(prefix, generation))
+                .map(generation -> generations.get(prefix))
+                .onErrorResume(e -> {
+                    log.warn("Shared response cache generation read failed for {}: {}", prefix, e.getMessage());
+                    return Mono.just(0L);
+                });
+    }
+
+    public Mono<CachedResponse> get(String prefix, long generation, String key) {
+        long now = System.currentTimeMillis();
+        CachedResponse cached = getLocal(key, generation, now);
+        if (cached != null || redis == null) {
+            return Mono.justOrEmpty(cached);
+        }
+
+        return redis.opsForValue().get(redisKey(generation, key))
+                .flatMap(json -> Mono.justOrEmpty(deserialize(json)))
+                .filter(entry -> !entry.isExpired(now))
+                .doOnNext(entry -> putLocal(prefix, generation, key, entry))
+                .onErrorResume(e -> {
+                    log.warn("Shared response cache read failed for {}: {}", key, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    public void put(String prefix, long generation, String key, CachedResponse entry, Duration ttl) {
+        if (!putLocal(prefix, generation, key, entry) || redis == null) {
+            return;
+        }
+
+        String json = serialize(entry);
+        if (json != null) {
+            redis.opsForValue().set(redisKey(generation, key), json, ttl)
+                    .subscribe(ok -> { }, e -> log.warn("Shared response cache write failed for {}: {}", key, e.getMessage()));
+        }
+    }
+
+    /**
+     * Moves the prefix to a new generation: local entries are dropped right away, and with Redis the
+     * shared counter is bumped and the new generation broadcast to the other instances.
+     */
+    public void invalidatePrefix(String prefix) {
+        synchronized (local) {
+            generations.merge(prefix, 1L, Long::sum);
+            removeLocal(prefix);
+        }
+        if (redis == null) {
+            return;
+        }
+
+        redis.opsForValue().increment(GENERATION_PREFIX + prefix)
+                .doOnNext(generation -> advance(prefix, generation))
+                .flatMap(generation -> redis.convertAndSend(INVALIDATION_CHANNEL, generation + " " + prefix))
+                .subscribe(n -> { }, e -> log.warn("Shared response cache invalidation failed for {}: {}", prefix, e.getMessage()));
+    }
+
+    private void subscribe() {
+        redis.listenToChannel(INVALIDATION_CHANNEL)
+                .doOnNext(message -> {
+                    String[] parts = message.getMessage().split(" ", 2);
+                    if (parts.length == 2 && generations.containsKey(parts[1])) {
+                        advance(parts[1], Long.parseLong(parts[0]));
+                    }
+                })
+                .doOnError(e -> log.warn("Shared response cache invalidation channel failed: {}", e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    /**
+     * Raises the prefix to at least the given generation, dropping local entries if it moved.
+     */
+    private void advance(String prefix, long generation) {
+        synchronized (local) {
+            Long current = generations.get(prefix);
+            if (current != null && current >= generation) {
+                return;
+            }
+            generations.put(prefix, generation);
+            if (current != null) {
+                removeLocal(prefix);
+            }
+        }
+    }
+
+    private CachedResponse getLocal(String key, long generation, long now) {
+        synchronized (local) {
+            Entry cached = local.get(key);
+            if (cached == null || cached.generation() != generation) {
+                return null;
+            }
+            if (cached.response().isExpired(now)) {
+                local.remove(key);
+                return null;
+            }
+            return cached.response();
+        }
+    }
+
+    private boolean putLocal(String prefix, long generation, String key, CachedResponse entry) {
+        synchronized (local) {
+            if (generations.getOrDefault(prefix, 0L) != generation) {
+                return false;
+            }
+            local.put(key, new Entry(generation, entry));
+            return true;
+        }
+    }
+
+    private void removeLocal(String prefix) {
+        String start = prefix + "|";
+        local.keySet().removeIf(key -> key.startsWith(start));
+    }
+
+    private static String redisKey(long generation, String key) {
+        return REDIS_PREFIX + generation + ":" + key;
+    }
+
+    private String serialize(CachedResponse entry) {
+        try {
+            return objectMapper.writeValueAsString(entry);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize cached response: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private CachedResponse deserialize(String json) {
+        try {
+            return objectMapper.readValue(json, CachedResponse.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not deserialize cached response: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.flanux.gateway.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Last good GET response per route, user and path, kept so fallbacks can serve a stale copy
+ * while a downstream service is unavailable. Bounded by entry count and maximum age.
+ */
+@Component
+public class StaleResponseStore {
+
+    private final Map<String, CachedResponse> entries;
+    private final long maxAgeMillis;
+
+    public StaleResponseStore(@Value("${gateway.stale.max-size:10000}") int maxSize,
+                              @Value("${gateway.stale.max-age:10m}") Duration maxAge) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.maxAgeMillis = maxAge.toMillis();
+    }
+
+    public void put(String key, CachedResponse response) {
+        synchronized (entries) {
+            entries.put(key, response);
+        }
+    }
+
+    public CachedResponse get(String key) {
+        synchronized (entries) {
+            CachedResponse cached = entries.get(key);
+            if (cached != null && System.currentTimeMillis() - cached.getStoredAtMillis() > maxAgeMillis) {
+                entries.remove(key);
+                return null;
+            }
+            return cached;
+        }
+    }
+
+    public long getMaxAgeMillis() {
+        return maxAgeMillis;
+    }
+}
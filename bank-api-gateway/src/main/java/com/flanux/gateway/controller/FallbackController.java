@@ -1,10 +1,15 @@
 package com.flanux.gateway.controller;
 
+import com.flanux.gateway.cache.CachedResponse;
+import com.flanux.gateway.cache.StaleResponseStore;
+import com.flanux.gateway.filter.StaleResponseFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -14,55 +19,82 @@ import java.util.Map;
 @RequestMapping("/fallback")
 public class FallbackController {
 
-    @GetMapping("/account-service")
-    public ResponseEntity<Map<String, Object>> accountServiceFallback() {
-        return createFallbackResponse("Account Service");
+    @Autowired
+    private StaleResponseStore staleResponseStore;
+
+    @RequestMapping("/account-service")
+    public ResponseEntity<?> accountServiceFallback(ServerWebExchange exchange) {
+        return createFallbackResponse("Account Service", exchange);
     }
 
-    @GetMapping("/customer-service")
-    public ResponseEntity<Map<String, Object>> customerServiceFallback() {
-        return createFallbackResponse("Customer Service");
+    @RequestMapping("/customer-service")
+    public ResponseEntity<?> customerServiceFallback(ServerWebExchange exchange) {
+        return createFallbackResponse("Customer Service", exchange);
     }
 
-    @GetMapping("/loan-service")
-    public ResponseEntity<Map<String, Object>> loanServiceFallback() {
-        return createFallbackResponse("Loan Service");
+    @RequestMapping("/loan-service")
+    public ResponseEntity<?> loanServiceFallback(ServerWebExchange exchange) {
+        return createFallbackResponse("Loan Service", exchange);
     }
 
-    @GetMapping("/card-service")
-    public ResponseEntity<Map<String, Object>> cardServiceFallback() {
-        return createFallbackResponse("Card Service");
+    @RequestMapping("/card-service")
+    public ResponseEntity<?> cardServiceFallback(ServerWebExchange exchange) {
+        return createFallbackResponse("Card Service", exchange);
     }
 
-    @GetMapping("/transaction-service")
-    public ResponseEntity<Map<String, Object>> transactionServiceFallback() {
-        return createFallbackResponse("Transaction Service");
+    @RequestMapping("/transaction-service")
+    public ResponseEntity<?> transactionServiceFallback(ServerWebExchange exchange) {
+        return createFallbackResponse("Transaction Service", exchange);
     }
 
-    @GetMapping("/ledger-service")
-    public ResponseEntity<Map<String, Object>> ledgerServiceFallback() {
-        return createFallbackResponse("Ledger Service");
+    @RequestMapping("/ledger-service")
+    public ResponseEntity<?> ledgerServiceFallback(ServerWebExchange exchange) {
+        return createFallbackResponse("Ledger Service", exchange);
     }
 
-    @GetMapping("/notification-service")
-    public ResponseEntity<Map<String, Object>> notificationServiceFallback() {
-        return createFallbackResponse("Notification Service");
+    @RequestMapping("/notification-service")
+    public ResponseEntity<?> notificationServiceFallback(ServerWebExchange exchange) {
+        return createFallbackResponse("Notification Service", exchange);
     }
 
-    @GetMapping("/reporting-service")
-    public ResponseEntity<Map<String, Object>> reportingServiceFallback() {
-        return createFallbackResponse("Reporting Service");
+    @RequestMapping("/reporting-service")
+    public ResponseEntity<?> reportingServiceFallback(ServerWebExchange exchange) {
+        return createFallbackResponse("Reporting Service", exchange);
     }
 
-    private ResponseEntity<Map<String, Object>> createFallbackResponse(String serviceName) {
+    // Mapped for every method so writes on an open circuit get the 503 payload instead of a 405;
+    // only GETs carry a stale key, so only reads are ever served a stale copy
+    private ResponseEntity<?> createFallbackResponse(String serviceName, ServerWebExchange exchange) {
+        String staleKey = exchange.getAttribute(StaleResponseFilter.STALE_KEY_ATTR);
+        CachedResponse stale = staleKey != null ? staleResponseStore.get(staleKey) : null;
+        if (stale != null) {
+            return staleResponse(stale);
+        }
+
         Map<String, Object> response = new HashMap<>();
         response.put("error", serviceName + " is currently unavailable");
         response.put("message", "Please try again later. Our team has been notified.");
         response.put("timestamp", LocalDateTime.now().toString());
         response.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
-        
+
         return ResponseEntity
                 .status(HttpStatus.SERVICE_UNAVAILABLE)
                 .body(response);
     }
+
+    private ResponseEntity<byte[]> staleResponse(CachedResponse stale) {
+        HttpHeaders headers = new HttpHeaders();
+        stale.getHeaders().forEach((name, values) -> {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                headers.addAll(name, values);
+            }
+        });
+        long ageSeconds = (System.currentTimeMillis() - stale.getStoredAtMillis()) / 1000;
+        headers.set(StaleResponseFilter.STALE_AGE_HEADER, String.valueOf(ageSeconds));
+
+        return ResponseEntity
+                .status(stale.getStatus())
+                .headers(headers)
+                .body(stale.getBody());
+    }
 }
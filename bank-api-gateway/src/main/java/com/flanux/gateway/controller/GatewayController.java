@@ -1,5 +1,8 @@
 package com.flanux.gateway.controller;
 
+import com.flanux.gateway.metrics.GatewayMetrics;
+import com.flanux.gateway.util.TokenCache;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -13,6 +16,12 @@ import java.util.Map;
 @RequestMapping("/api/gateway")
 public class GatewayController {
 
+    @Autowired
+    private GatewayMetrics gatewayMetrics;
+
+    @Autowired
+    private TokenCache tokenCache;
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> health() {
         Map<String, Object> response = new HashMap<>();
@@ -44,4 +53,19 @@ public class GatewayController {
         
         return ResponseEntity.ok(response);
     }
+
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> metrics() {
+        Map<String, Object> jwt = gatewayMetrics.jwtSnapshot();
+        jwt.put("cacheHits", tokenCache.getHits());
+        jwt.put("cacheMisses", tokenCache.getMisses());
+        jwt.put("cacheSize", tokenCache.size());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now().toString());
+        response.put("routes", gatewayMetrics.routeSnapshots());
+        response.put("auth", jwt);
+
+        return ResponseEntity.ok(response);
+    }
 }
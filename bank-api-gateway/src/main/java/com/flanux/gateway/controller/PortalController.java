@@ -0,0 +1,51 @@
+package com.flanux.gateway.controller;
+
+import com.flanux.gateway.service.PortalSummaryService;
+import com.flanux.gateway.util.JwtUtil;
+import com.flanux.gateway.util.VerifiedToken;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+// Served by the gateway itself, so the route-level AuthenticationFilter does not apply; the token is checked here
+@RestController
+@RequestMapping("/api/portal")
+public class PortalController {
+
+    @Autowired
+    private PortalSummaryService portalSummaryService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @GetMapping("/summary")
+    public Mono<ResponseEntity<Map<String, Object>>> summary(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return Mono.just(unauthorized("Missing or invalid authorization header"));
+        }
+
+        VerifiedToken token;
+        try {
+            token = jwtUtil.verify(authorization.substring(7));
+        } catch (Exception e) {
+            return Mono.just(unauthorized("Invalid or expired token"));
+        }
+
+        return portalSummaryService.summary(token, authorization)
+                .map(ResponseEntity::ok);
+    }
+
+    private ResponseEntity<Map<String, Object>> unauthorized(String error) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(Map.of("error", error, "status", HttpStatus.UNAUTHORIZED.value()));
+    }
+}
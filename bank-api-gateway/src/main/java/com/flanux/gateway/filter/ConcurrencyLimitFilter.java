@@ -0,0 +1,103 @@
+package com.flanux.gateway.filter;
+
+import com.flanux.gateway.limit.AdaptiveConcurrencyLimit;
+import com.flanux.gateway.limit.AdaptiveConcurrencyLimit.Priority;
+import com.flanux.gateway.limit.ConcurrencyLimitRegistry;
+import lombok.Data;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Latency-driven concurrency limit per route. Requests over the route's current limit are
+ * rejected immediately with 429 and Retry-After instead of queueing on a struggling service.
+ * Paths listed under highPriority (transfers, login) may use the whole limit; lowPriority
+ * paths (lists, reports) are shed first. Placed after CircuitBreaker so it only samples
+ * requests that actually reach the service, with their raw downstream status.
+ */
+@Component
+public class ConcurrencyLimitFilter extends AbstractGatewayFilterFactory<ConcurrencyLimitFilter.Config> {
+
+    private final ConcurrencyLimitRegistry registry;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitRegistry registry) {
+        super(Config.class);
+        this.registry = registry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        PathTrie highPriority = compile(config.getHighPriority());
+        PathTrie lowPriority = compile(config.getLowPriority());
+
+        return (exchange, chain) -> {
+            String routeId = SingleFlightFilter.routeId(exchange);
+            AdaptiveConcurrencyLimit limit = registry.getOrCreate(routeId, () -> new AdaptiveConcurrencyLimit(
+                    routeId, config.getInitialLimit(), config.getMinLimit(), config.getMaxLimit(),
+                    config.getTargetLatency().toNanos(), config.getBackoffRatio()));
+
+            String path = exchange.getRequest().getURI().getPath();
+            Priority priority = highPriority.matches(path) ? Priority.HIGH
+                    : lowPriority.matches(path) ? Priority.LOW
+                    : Priority.NORMAL;
+
+            if (!limit.tryAcquire(priority)) {
+                return reject(exchange, config);
+            }
+
+            long start = System.nanoTime();
+            return chain.filter(exchange)
+                    .doFinally(signal -> {
+                        HttpStatusCode status = exchange.getResponse().getStatusCode();
+                        boolean failed = signal == SignalType.ON_ERROR
+                                || (status != null && status.is5xxServerError());
+                        limit.release(System.nanoTime() - start, failed);
+                    });
+        };
+    }
+
+    private static PathTrie compile(List<String> patterns) {
+        PathTrie trie = new PathTrie();
+        for (String pattern : patterns) {
+            if (!PathTrie.isCompilable(pattern)) {
+                throw new IllegalArgumentException("Unsupported priority path pattern: " + pattern);
+            }
+            trie.add(pattern);
+        }
+        return trie;
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, Config config) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().add("Content-Type", "application/json");
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(config.getRetryAfter().toSeconds()));
+        String body = String.format("{\"error\": \"%s\", \"status\": %d}",
+                "Service is busy, please retry shortly", HttpStatus.TOO_MANY_REQUESTS.value());
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes())));
+    }
+
+    @Data
+    public static class Config {
+        private int initialLimit = 50;
+        private int minLimit = 5;
+        private int maxLimit = 500;
+        // Responses slower than this count as congestion and shrink the limit
+        private Duration targetLatency = Duration.ofMillis(500);
+        private double backoffRatio = 0.9;
+        private Duration retryAfter = Duration.ofSeconds(1);
+        private List<String> highPriority = new ArrayList<>();
+        private List<String> lowPriority = new ArrayList<>();
+    }
+}
@@ -0,0 +1,274 @@
+package com.flanux.gateway.filter;
+
+import com.flanux.gateway.cache.CachedResponse;
+import com.flanux.gateway.limit.AdaptiveConcurrencyLimit;
+import com.flanux.gateway.limit.AdaptiveConcurrencyLimit.Priority;
+import com.flanux.gateway.limit.ConcurrencyLimitRegistry;
+import com.flanux.gateway.limit.RetryBudget;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.Data;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Opt-in hedging for idempotent GETs to small, single-resource endpoints. The request is sent
+ * downstream once; if no answer arrives within the route's recent p95 latency (clamped to
+ * [minDelay, maxDelay]) a second copy is sent and whichever answers first is returned. A hedge
+ * draws a token from the global {@link RetryBudget} and takes a low-priority slot of the route's
+ * {@link AdaptiveConcurrencyLimit}; without both it is not sent.
+ *
+ * <p>Both attempts are buffered in memory to race them, so only paths listed in {@code paths}
+ * are hedged; list endpoints keep streaming through the Netty routing filter. Runs right after
+ * {@link RouteToRequestUrlFilter} so the resolved downstream URL is known, and applies the same
+ * {@link HttpHeadersFilter}s as the routing filter. If every attempt fails, the last error is
+ * returned; no further call is made. Only a body over {@code maxBodyBytes} is routed again
+ * normally, and only if the retry budget has a token for it.
+ */
+@Component
+public class HedgingFilter extends AbstractGatewayFilterFactory<HedgingFilter.Config> {
+
+    private static final int ORDER = RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 1;
+
+    private final WebClient.Builder webClientBuilder;
+    private final RetryBudget retryBudget;
+    private final ConcurrencyLimitRegistry concurrencyLimits;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<List<HttpHeadersFilter>> headersFilters;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public HedgingFilter(WebClient.Builder webClientBuilder, RetryBudget retryBudget,
+                         ConcurrencyLimitRegistry concurrencyLimits, MeterRegistry meterRegistry,
+                         ObjectProvider<List<HttpHeadersFilter>> headersFilters) {
+        super(Config.class);
+        this.webClientBuilder = webClientBuilder;
+        this.retryBudget = retryBudget;
+        this.concurrencyLimits = concurrencyLimits;
+        this.meterRegistry = meterRegistry;
+        this.headersFilters = headersFilters;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        WebClient webClient = webClientBuilder.clone()
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(config.getMaxBodyBytes()))
+                .build();
+        RouteLatency latency = new RouteLatency(config);
+        PathTrie hedgedPaths = compile(config.getPaths());
+        PathTrie excludedPaths = compile(config.getExcludePaths());
+
+        GatewayFilter filter = (exchange, chain) -> {
+            URI requestUrl = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+            if (exchange.getRequest().getMethod() != HttpMethod.GET || requestUrl == null
+                    || ServerWebExchangeUtils.isAlreadyRouted(exchange)
+                    || !isHedged(originalPath(exchange), hedgedPaths, excludedPaths)) {
+                return chain.filter(exchange);
+            }
+
+            String routeId = SingleFlightFilter.routeId(exchange);
+            AdaptiveConcurrencyLimit limit = concurrencyLimits.get(routeId);
+            ServerWebExchangeUtils.setAlreadyRouted(exchange);
+            retryBudget.deposit();
+            long start = System.nanoTime();
+            AtomicReference<Throwable> lastError = new AtomicReference<>();
+
+            Mono<Attempt> primary = send(webClient, exchange, requestUrl)
+                    .doOnError(lastError::set)
+                    .map(response -> new Attempt(response, false));
+            Mono<Attempt> hedge = Mono.delay(latency.hedgeDelay(routeId))
+                    .filter(tick -> acquireHedge(limit))
+                    .flatMap(tick -> {
+                        counter(routeId, "sent").increment();
+                        return limited(limit, send(webClient, exchange, requestUrl));
+                    })
+                    .doOnError(lastError::set)
+                    .map(response -> new Attempt(response, true));
+
+            return Mono.firstWithValue(primary, hedge)
+                    .map(Optional::of)
+                    .onErrorResume(e -> {
+                        Throwable error = lastError.get() != null ? lastError.get() : e;
+                        // Too large to buffer: stream it through the routing filter, as one more attempt
+                        return error instanceof DataBufferLimitException && retryBudget.tryWithdraw()
+                                ? Mono.just(Optional.empty())
+                                : Mono.error(error);
+                    })
+                    .flatMap(attempt -> {
+                        if (attempt.isEmpty()) {
+                            counter(routeId, "fallback").increment();
+                            return routeNormally(exchange, chain);
+                        }
+                        latency.record(routeId, System.nanoTime() - start);
+                        if (attempt.get().hedge()) {
+                            counter(routeId, "hedge_won").increment();
+                        }
+                        return attempt.get().response().writeTo(exchange.getResponse());
+                    });
+        };
+        return new OrderedGatewayFilter(filter, ORDER);
+    }
+
+    private static PathTrie compile(List<String> patterns) {
+        PathTrie trie = new PathTrie();
+        for (String pattern : patterns) {
+            if (!PathTrie.isCompilable(pattern)) {
+                throw new IllegalArgumentException("Unsupported hedging path pattern: " + pattern);
+            }
+            trie.add(pattern);
+        }
+        return trie;
+    }
+
+    private static boolean isHedged(String path, PathTrie hedgedPaths, PathTrie excludedPaths) {
+        return hedgedPaths.matches(path) && !excludedPaths.matches(path);
+    }
+
+    // A hedge needs a free low-priority slot of the route's limit and a token from the budget
+    private boolean acquireHedge(AdaptiveConcurrencyLimit limit) {
+        if (limit != null && !limit.tryAcquire(Priority.LOW)) {
+            return false;
+        }
+        if (!retryBudget.tryWithdraw()) {
+            if (limit != null) {
+                limit.abandon();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    // Holds the hedge's slot until it answers; a hedge cancelled by the winning primary gives it back unmeasured
+    private static Mono<CachedResponse> limited(AdaptiveConcurrencyLimit limit, Mono<CachedResponse> attempt) {
+        if (limit == null) {
+            return attempt;
+        }
+        long start = System.nanoTime();
+        return attempt.doOnEach(signal -> {
+            if (signal.isOnNext()) {
+                limit.release(System.nanoTime() - start, signal.get().getStatus() >= 500);
+            } else if (signal.isOnError()) {
+                limit.release(System.nanoTime() - start, true);
+            }
+        }).doOnCancel(limit::abandon);
+    }
+
+    private Mono<Void> routeNormally(ServerWebExchange exchange, GatewayFilterChain chain) {
+        exchange.getAttributes().remove(ServerWebExchangeUtils.GATEWAY_ALREADY_ROUTED_ATTR);
+        return chain.filter(exchange);
+    }
+
+    private Mono<CachedResponse> send(WebClient webClient, ServerWebExchange exchange, URI requestUrl) {
+        List<HttpHeadersFilter> filters = headersFilters.getIfAvailable(List::of);
+        HttpHeaders requestHeaders = HttpHeadersFilter.filterRequest(filters, exchange);
+        return webClient.get()
+                .uri(requestUrl)
+                .headers(headers -> requestHeaders.forEach((name, values) -> {
+                    if (!HttpHeaders.HOST.equalsIgnoreCase(name)) {
+                        headers.addAll(name, values);
+                    }
+                }))
+                .exchangeToMono(response -> response.bodyToMono(byte[].class)
+                        .defaultIfEmpty(new byte[0])
+                        .map(body -> CachedResponse.of(response.statusCode(),
+                                HttpHeadersFilter.filter(filters, response.headers().asHttpHeaders(), exchange,
+                                        HttpHeadersFilter.Type.RESPONSE),
+                                body, 0)));
+    }
+
+    // The path as the client sent it, before StripPrefix
+    private static String originalPath(ServerWebExchange exchange) {
+        Set<URI> original = exchange.getAttributeOrDefault(
+                ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR, Collections.emptySet());
+        return original.isEmpty() ? exchange.getRequest().getURI().getPath() : original.iterator().next().getPath();
+    }
+
+    private Counter counter(String routeId, String outcome) {
+        return counters.computeIfAbsent(routeId + "|" + outcome, key -> Counter.builder("gateway.hedge")
+                .tag("route", routeId)
+                .tag("outcome", outcome)
+                .description("Hedged requests sent, how often the hedge answered first, and oversized bodies routed again")
+                .register(meterRegistry));
+    }
+
+    private Timer timer(String routeId) {
+        return timers.computeIfAbsent(routeId, key -> Timer.builder("gateway.hedge.latency")
+                .tag("route", routeId)
+                .publishPercentiles(0.95)
+                .register(meterRegistry));
+    }
+
+    private record Attempt(CachedResponse response, boolean hedge) {
+    }
+
+    /**
+     * Tracks request latency per route and derives the hedge delay from its p95,
+     * re-reading the percentile at most once a second.
+     */
+    private final class RouteLatency {
+        private final Config config;
+        private volatile long delayNanos;
+        private volatile long refreshedAtNanos;
+
+        RouteLatency(Config config) {
+            this.config = config;
+            this.delayNanos = config.getMaxDelay().toNanos();
+        }
+
+        void record(String routeId, long nanos) {
+            timer(routeId).record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        Duration hedgeDelay(String routeId) {
+            long now = System.nanoTime();
+            if (now - refreshedAtNanos > TimeUnit.SECONDS.toNanos(1)) {
+                refreshedAtNanos = now;
+                for (ValueAtPercentile percentile : timer(routeId).takeSnapshot().percentileValues()) {
+                    long p95 = (long) percentile.value(TimeUnit.NANOSECONDS);
+                    if (p95 > 0) {
+                        delayNanos = Math.max(config.getMinDelay().toNanos(), Math.min(config.getMaxDelay().toNanos(), p95));
+                    }
+                }
+            }
+            return Duration.ofNanos(delayNanos);
+        }
+    }
+
+    @Data
+    public static class Config {
+        private Duration minDelay = Duration.ofMillis(20);
+        private Duration maxDelay = Duration.ofMillis(500);
+        private int maxBodyBytes = 256 * 1024;
+        // Gateway paths (before StripPrefix) to hedge; single-resource GETs with small bodies
+        private List<String> paths = new ArrayList<>();
+        // Matches of paths that still must not be hedged, e.g. search endpoints returning lists
+        private List<String> excludePaths = new ArrayList<>();
+    }
+}
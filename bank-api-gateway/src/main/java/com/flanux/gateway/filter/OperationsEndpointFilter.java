@@ -0,0 +1,84 @@
+package com.flanux.gateway.filter;
+
+import com.flanux.gateway.util.JwtUtil;
+import com.flanux.gateway.util.VerifiedToken;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Guards the gateway's own operational endpoints (per-route metrics, actuator metrics,
+ * Prometheus and concurrency limits). These are served by the gateway itself, not routed, so
+ * {@link AuthenticationFilter} never sees them. They require a valid token with one of
+ * {@code gateway.operations.roles}; health and info stay open for load balancers.
+ */
+@Component
+public class OperationsEndpointFilter implements WebFilter {
+
+    private final JwtUtil jwtUtil;
+    private final PathTrie protectedPaths = new PathTrie();
+    private final PathTrie publicPaths = new PathTrie();
+    private final Set<String> roles;
+
+    public OperationsEndpointFilter(
+            JwtUtil jwtUtil,
+            @Value("${gateway.operations.paths:/api/gateway/metrics,/actuator/**}") List<String> paths,
+            @Value("${gateway.operations.public-paths:/actuator/health/**,/actuator/info}") List<String> openPaths,
+            @Value("${gateway.operations.roles:CENTRAL_BANK_ADMIN}") List<String> roles) {
+        this.jwtUtil = jwtUtil;
+        compile(paths, protectedPaths);
+        compile(openPaths, publicPaths);
+        this.roles = Set.copyOf(roles);
+    }
+
+    private static void compile(List<String> patterns, PathTrie trie) {
+        for (String pattern : patterns) {
+            if (!PathTrie.isCompilable(pattern)) {
+                throw new IllegalArgumentException("Unsupported operations path pattern: " + pattern);
+            }
+            trie.add(pattern);
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String path = exchange.getRequest().getURI().getPath();
+        if (!protectedPaths.matches(path) || publicPaths.matches(path)) {
+            return chain.filter(exchange);
+        }
+
+        String header = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith("Bearer ")) {
+            return reject(exchange, HttpStatus.UNAUTHORIZED, "Missing authorization header");
+        }
+        VerifiedToken token;
+        try {
+            token = jwtUtil.verify(header.substring(7));
+        } catch (JwtException | IllegalArgumentException e) {
+            return reject(exchange, HttpStatus.UNAUTHORIZED, "Invalid or expired token");
+        }
+        if (token.getRole() == null || !roles.contains(token.getRole())) {
+            return reject(exchange, HttpStatus.FORBIDDEN, "Operations endpoints need an operator role");
+        }
+        return chain.filter(exchange);
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange, HttpStatus status, String error) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().add("Content-Type", "application/json");
+        String body = String.format("{\"error\": \"%s\", \"status\": %d}", error, status.value());
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,124 @@
+package com.flanux.gateway.filter;
+
+import java.util.Arrays;
+
+/**
+ * Segment trie compiled from Ant-style patterns made of literal segments, {@code *}
+ * (exactly one segment) and {@code **} (zero or more segments).
+ * Matching walks the raw path in place and does not allocate.
+ */
+final class PathTrie {
+
+    private final Node root = new Node();
+
+    /**
+     * Returns true if the pattern only uses whole-segment wildcards and can be compiled.
+     */
+    static boolean isCompilable(String pattern) {
+        for (String segment : pattern.split("/")) {
+            if (segment.equals("*") || segment.equals("**")) {
+                continue;
+            }
+            if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void add(String pattern) {
+        Node node = root;
+        for (String segment : pattern.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.equals("**")) {
+                if (node.multi == null) node.multi = new Node();
+                node = node.multi;
+            } else if (segment.equals("*")) {
+                if (node.single == null) node.single = new Node();
+                node = node.single;
+            } else {
+                node = node.literal(segment);
+            }
+        }
+        node.terminal = true;
+    }
+
+    boolean matches(String path) {
+        return matches(root, path, 0);
+    }
+
+    private static boolean matches(Node node, String path, int pos) {
+        int len = path.length();
+        while (pos < len && path.charAt(pos) == '/') {
+            pos++;
+        }
+
+        if (pos >= len) {
+            return node.terminal || (node.multi != null && matchesEmpty(node.multi));
+        }
+
+        int end = path.indexOf('/', pos);
+        if (end < 0) end = len;
+        int segmentLength = end - pos;
+
+        for (int i = 0; i < node.literalCount; i++) {
+            String literal = node.literals[i];
+            if (literal.length() == segmentLength
+                    && path.regionMatches(pos, literal, 0, segmentLength)
+                    && matches(node.literalChildren[i], path, end)) {
+                return true;
+            }
+        }
+
+        if (node.single != null && matches(node.single, path, end)) {
+            return true;
+        }
+
+        if (node.multi != null) {
+            if (node.multi.terminal) {
+                return true;
+            }
+            // ** in the middle of a pattern: try every remaining segment boundary
+            int p = pos;
+            while (true) {
+                if (matches(node.multi, path, p)) {
+                    return true;
+                }
+                if (p >= len) {
+                    break;
+                }
+                int next = path.indexOf('/', p + 1);
+                p = next < 0 ? len : next;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesEmpty(Node node) {
+        return node.terminal || (node.multi != null && matchesEmpty(node.multi));
+    }
+
+    private static final class Node {
+        String[] literals = new String[0];
+        Node[] literalChildren = new Node[0];
+        int literalCount;
+        Node single;
+        Node multi;
+        boolean terminal;
+
+        Node literal(String segment) {
+            for (int i = 0; i < literalCount; i++) {
+                if (literals[i].equals(segment)) {
+                    return literalChildren[i];
+                }
+            }
+            literals = Arrays.copyOf(literals, literalCount + 1);
+            literalChildren = Arrays.copyOf(literalChildren, literalCount + 1);
+            literals[literalCount] = segment;
+            literalChildren[literalCount] = new Node();
+            return literalChildren[literalCount++];
+        }
+    }
+}
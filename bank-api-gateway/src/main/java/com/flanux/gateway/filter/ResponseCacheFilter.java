@@ -0,0 +1,163 @@
+package com.flanux.gateway.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flanux.gateway.cache.BodyCapture;
+import com.flanux.gateway.cache.CachedResponse;
+import com.flanux.gateway.cache.ResponseCacheStore;
+import lombok.Data;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opt-in per-route cache for idempotent GET responses.
+ * Entries are scoped per user (X-User-Id), so requests without a user id bypass the cache, and are
+ * dropped on every gateway instance when a write goes through the same resource prefix.
+ */
+@Component
+public class ResponseCacheFilter extends AbstractGatewayFilterFactory<ResponseCacheFilter.Config> {
+
+    public static final String CACHE_HEADER = "X-Cache";
+
+    private final ObjectProvider<ReactiveStringRedisTemplate> redisTemplate;
+    private final ObjectMapper objectMapper;
+    // Stores named by routes that share one cache, e.g. a resource's GET route and its write route
+    private final Map<String, ResponseCacheStore> namedStores = new ConcurrentHashMap<>();
+
+    public ResponseCacheFilter(ObjectProvider<ReactiveStringRedisTemplate> redisTemplate, ObjectMapper objectMapper) {
+        super(Config.class);
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        ResponseCacheStore store = config.getStore() != null
+                ? namedStores.computeIfAbsent(config.getStore(), name -> newStore(config))
+                : newStore(config);
+        PathTrie readOnlyPaths = new PathTrie();
+        for (String pattern : config.getReadOnlyPaths()) {
+            if (!PathTrie.isCompilable(pattern)) {
+                throw new IllegalArgumentException("Unsupported read-only path pattern: " + pattern);
+            }
+            readOnlyPaths.add(pattern);
+        }
+
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            String prefix = resourcePrefix(request.getURI().getPath());
+
+            if (request.getMethod() != HttpMethod.GET) {
+                if (isWrite(request.getMethod()) && !readOnlyPaths.matches(request.getURI().getPath())) {
+                    // Reads that raced the write are discarded by the generation check in the store
+                    return chain.filter(exchange)
+                            .doFinally(signal -> store.invalidatePrefix(prefix));
+                }
+                return chain.filter(exchange);
+            }
+
+            String userId = userId(request);
+            if (userId == null) {
+                return chain.filter(exchange);
+            }
+
+            String key = cacheKey(prefix, userId, request);
+            return store.generation(prefix).flatMap(generation -> store.get(prefix, generation, key)
+                    .flatMap(cached -> {
+                        exchange.getResponse().getHeaders().set(CACHE_HEADER, "HIT");
+                        return cached.writeTo(exchange.getResponse());
+                    })
+                    .switchIfEmpty(Mono.defer(() -> chain.filter(exchange.mutate()
+                            .response(capturing(exchange, store, prefix, generation, key, config)).build()))));
+        };
+    }
+
+    private ResponseCacheStore newStore(Config config) {
+        return new ResponseCacheStore(
+                config.getMaxSize(),
+                config.isShared() ? redisTemplate.getIfAvailable() : null,
+                objectMapper);
+    }
+
+    /**
+     * The authenticated user's id, or null when the request carries none; such requests are never
+     * cached or shared, since every anonymous caller would otherwise get the same entry.
+     */
+    static String userId(ServerHttpRequest request) {
+        String userId = request.getHeaders().getFirst("X-User-Id");
+        return userId == null || userId.isBlank() ? null : userId;
+    }
+
+    static String cacheKey(String prefix, String userId, ServerHttpRequest request) {
+        String query = request.getURI().getRawQuery();
+        return prefix + "|" + userId + "|"
+                + request.getURI().getRawPath() + (query != null ? "?" + query : "");
+    }
+
+    /**
+     * First two path segments, e.g. {@code /api/accounts} for {@code /api/accounts/my/42}.
+     */
+    static String resourcePrefix(String path) {
+        int first = path.indexOf('/', 1);
+        if (first < 0) {
+            return path;
+        }
+        int second = path.indexOf('/', first + 1);
+        return second < 0 ? path : path.substring(0, second);
+    }
+
+    private static boolean isWrite(HttpMethod method) {
+        return method == HttpMethod.POST || method == HttpMethod.PUT
+                || method == HttpMethod.PATCH || method == HttpMethod.DELETE;
+    }
+
+    private ServerHttpResponse capturing(ServerWebExchange exchange, ResponseCacheStore store,
+                                         String prefix, long generation, String key, Config config) {
+        ServerHttpResponse original = exchange.getResponse();
+        return new ServerHttpResponseDecorator(original) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                HttpStatusCode status = getStatusCode();
+                if (status == null || !status.is2xxSuccessful()
+                        || getHeaders().getContentLength() > config.getMaxBodyBytes()) {
+                    return super.writeWith(body);
+                }
+
+                getHeaders().set(CACHE_HEADER, "MISS");
+                return super.writeWith(BodyCapture.tee(body, config.getMaxBodyBytes(), bytes ->
+                        store.put(prefix, generation, key,
+                                CachedResponse.of(status, getHeaders(), bytes, config.getTtl().toMillis()), config.getTtl())));
+            }
+        };
+    }
+
+    @Data
+    public static class Config {
+        private Duration ttl = Duration.ofSeconds(15);
+        private int maxSize = 1000;
+        private int maxBodyBytes = 1024 * 1024;
+        // Also store entries in the spring.data.redis instance so other gateway instances can serve them
+        private boolean shared = false;
+        // POST endpoints that only read, e.g. batch lookups; they do not invalidate the prefix
+        private List<String> readOnlyPaths = new ArrayList<>();
+        // Routes naming the same store share it; the first route's maxSize and shared settings apply
+        private String store;
+    }
+}
@@ -1,9 +1,11 @@
 package com.flanux.gateway.filter;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.util.AntPathMatcher;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Predicate;
 
@@ -12,13 +14,40 @@ public class RouteValidator {
 
     private static final AntPathMatcher pathMatcher = new AntPathMatcher();
 
-    public static final List<String> openApiEndpoints = List.of(
-            "/api/auth/**",
-            "/actuator/**",
-            "/fallback/**"
-    );
+    private final List<String> openApiEndpoints;
+
+    // Whitelist compiled once at startup; patterns with in-segment wildcards fall back to AntPathMatcher
+    private final PathTrie openPaths = new PathTrie();
+    private final List<String> fallbackPatterns = new ArrayList<>();
+
+    public RouteValidator(
+            @Value("${gateway.open-endpoints:/api/auth/**,/actuator/health/**,/actuator/info,/fallback/**}") List<String> openApiEndpoints) {
+        this.openApiEndpoints = List.copyOf(openApiEndpoints);
+        for (String pattern : this.openApiEndpoints) {
+            if (PathTrie.isCompilable(pattern)) {
+                openPaths.add(pattern);
+            } else {
+                fallbackPatterns.add(pattern);
+            }
+        }
+    }
+
+    public List<String> getOpenApiEndpoints() {
+        return openApiEndpoints;
+    }
+
+    public boolean isOpen(String path) {
+        if (openPaths.matches(path)) {
+            return true;
+        }
+        for (String pattern : fallbackPatterns) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
     public Predicate<ServerHttpRequest> isSecured =
-            request -> openApiEndpoints.stream()
-                    .noneMatch(pattern -> pathMatcher.match(pattern, request.getURI().getPath()));
-}
\ No newline at end of file
+            request -> !isOpen(request.getURI().getPath());
+}
@@ -0,0 +1,120 @@
+package com.flanux.gateway.filter;
+
+import com.flanux.gateway.cache.BodyCapture;
+import com.flanux.gateway.cache.CachedResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collapses concurrent identical GETs (same path, query and user) into one downstream call.
+ * Requests without an X-User-Id are passed through uncollapsed.
+ * The first request becomes the leader; requests arriving while it is in flight wait for its
+ * response and replay it. If the leader fails or its body is too large to share, waiters
+ * fall through and call downstream themselves.
+ */
+@Component
+public class SingleFlightFilter extends AbstractGatewayFilterFactory<SingleFlightFilter.Config> {
+
+    public static final String COALESCED_HEADER = "X-Coalesced";
+
+    private final Map<String, Mono<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public SingleFlightFilter(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (request.getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+
+            // Without a user id the key would be shared by every caller, so never collapse such requests
+            String userId = ResponseCacheFilter.userId(request);
+            if (userId == null) {
+                return chain.filter(exchange);
+            }
+
+            String routeId = routeId(exchange);
+            String key = routeId + "|" + ResponseCacheFilter.cacheKey("", userId, request);
+
+            Sinks.One<CachedResponse> sink = Sinks.one();
+            Mono<CachedResponse> shared = sink.asMono();
+            Mono<CachedResponse> leader = inFlight.putIfAbsent(key, shared);
+
+            if (leader != null) {
+                counter(routeId, "collapsed").increment();
+                return leader
+                        .flatMap(response -> {
+                            exchange.getResponse().getHeaders().set(COALESCED_HEADER, "true");
+                            return response.writeTo(exchange.getResponse());
+                        })
+                        .switchIfEmpty(Mono.defer(() -> chain.filter(exchange)));
+            }
+
+            counter(routeId, "leader").increment();
+            return chain.filter(exchange.mutate().response(capturing(exchange, sink, config)).build())
+                    .doFinally(signal -> {
+                        inFlight.remove(key, shared);
+                        sink.tryEmitEmpty();
+                    });
+        };
+    }
+
+    private ServerHttpResponse capturing(ServerWebExchange exchange, Sinks.One<CachedResponse> sink, Config config) {
+        return new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                HttpStatusCode status = getStatusCode();
+                if (status == null || getHeaders().getContentLength() > config.getMaxBodyBytes()) {
+                    return super.writeWith(body);
+                }
+
+                return super.writeWith(BodyCapture.tee(body, config.getMaxBodyBytes(), bytes ->
+                        sink.tryEmitValue(CachedResponse.of(status, getHeaders(), bytes, 0))));
+            }
+        };
+    }
+
+    private Counter counter(String routeId, String role) {
+        return counters.computeIfAbsent(routeId + "|" + role, key -> Counter.builder("gateway.singleflight.requests")
+                .tag("route", routeId)
+                .tag("role", role)
+                .description("GET requests that led a downstream call or were collapsed onto one")
+                .register(meterRegistry));
+    }
+
+    static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "unknown";
+    }
+
+    @Data
+    public static class Config {
+        private int maxBodyBytes = 1024 * 1024;
+    }
+}
@@ -0,0 +1,77 @@
+package com.flanux.gateway.filter;
+
+import com.flanux.gateway.cache.BodyCapture;
+import com.flanux.gateway.cache.CachedResponse;
+import com.flanux.gateway.cache.StaleResponseStore;
+import lombok.Data;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Remembers the last good GET response per route, user and path so that the
+ * {@code /fallback/**} handlers can serve it when the route's circuit breaker trips.
+ * Requests without an X-User-Id get no stale copy.
+ * Must sit before the CircuitBreaker filter so the key is recorded even when the circuit is open.
+ */
+@Component
+public class StaleResponseFilter extends AbstractGatewayFilterFactory<StaleResponseFilter.Config> {
+
+    public static final String STALE_KEY_ATTR = StaleResponseFilter.class.getName() + ".key";
+    public static final String STALE_AGE_HEADER = "X-Stale-Age";
+
+    private final StaleResponseStore store;
+
+    public StaleResponseFilter(StaleResponseStore store) {
+        super(Config.class);
+        this.store = store;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            // Without a user id one caller's stale copy could be served to another, so record nothing
+            String userId = ResponseCacheFilter.userId(request);
+            if (request.getMethod() != HttpMethod.GET || userId == null) {
+                return chain.filter(exchange);
+            }
+
+            String key = SingleFlightFilter.routeId(exchange) + "|" + ResponseCacheFilter.cacheKey("", userId, request);
+            exchange.getAttributes().put(STALE_KEY_ATTR, key);
+            return chain.filter(exchange.mutate().response(capturing(exchange, key, config)).build());
+        };
+    }
+
+    private ServerHttpResponse capturing(ServerWebExchange exchange, String key, Config config) {
+        return new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                HttpStatusCode status = getStatusCode();
+                // Fallback responses pass through here too; never record a stale copy as a good one
+                if (status == null || !status.is2xxSuccessful()
+                        || getHeaders().containsKey(STALE_AGE_HEADER)
+                        || getHeaders().getContentLength() > config.getMaxBodyBytes()) {
+                    return super.writeWith(body);
+                }
+
+                return super.writeWith(BodyCapture.tee(body, config.getMaxBodyBytes(), bytes ->
+                        store.put(key, CachedResponse.of(status, getHeaders(), bytes, store.getMaxAgeMillis()))));
+            }
+        };
+    }
+
+    @Data
+    public static class Config {
+        private int maxBodyBytes = 256 * 1024;
+    }
+}
@@ -0,0 +1,98 @@
+package com.flanux.gateway.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AIMD concurrency limit for one downstream route. Each completed request is a sample:
+ * fast successes grow the limit by roughly one per round of requests, while slow responses,
+ * 5xx and errors shrink it multiplicatively. Higher priorities may use more of the limit,
+ * so low-priority traffic is shed first as the limit tightens.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    public enum Priority {
+        HIGH(1.0), NORMAL(0.9), LOW(0.7);
+
+        private final double share;
+
+        Priority(double share) {
+            this.share = share;
+        }
+    }
+
+    private final String routeId;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong shed = new AtomicLong();
+    private volatile double limit;
+
+    public AdaptiveConcurrencyLimit(String routeId, int initialLimit, int minLimit, int maxLimit,
+                                    long targetLatencyNanos, double backoffRatio) {
+        this.routeId = routeId;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.backoffRatio = backoffRatio;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Claims a slot if the priority's share of the current limit is not used up. Never blocks.
+     */
+    public boolean tryAcquire(Priority priority) {
+        int allowed = Math.max(1, (int) (limit * priority.share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                shed.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a slot and feeds the request's outcome back into the limit.
+     */
+    public void release(long latencyNanos, boolean failed) {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            if (failed || latencyNanos > targetLatencyNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+        }
+    }
+
+    /**
+     * Releases a slot without feeding back an outcome, for an attempt cancelled before it
+     * finished (e.g. a hedge that lost the race).
+     */
+    public void abandon() {
+        inFlight.decrementAndGet();
+    }
+
+    public String getRouteId() {
+        return routeId;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getShed() {
+        return shed.get();
+    }
+}
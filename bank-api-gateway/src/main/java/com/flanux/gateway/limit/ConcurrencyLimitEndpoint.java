@@ -0,0 +1,34 @@
+package com.flanux.gateway.limit;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@code /actuator/concurrency}: current limit, in-flight count and shed total per route.
+ */
+@Component
+@Endpoint(id = "concurrency")
+public class ConcurrencyLimitEndpoint {
+
+    private final ConcurrencyLimitRegistry registry;
+
+    public ConcurrencyLimitEndpoint(ConcurrencyLimitRegistry registry) {
+        this.registry = registry;
+    }
+
+    @ReadOperation
+    public Map<String, Object> limits() {
+        Map<String, Object> routes = new TreeMap<>();
+        for (AdaptiveConcurrencyLimit limit : registry.all()) {
+            routes.put(limit.getRouteId(), Map.of(
+                    "limit", limit.getLimit(),
+                    "inFlight", limit.getInFlight(),
+                    "shed", limit.getShed()));
+        }
+        return routes;
+    }
+}
@@ -0,0 +1,55 @@
+package com.flanux.gateway.limit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Holds one {@link AdaptiveConcurrencyLimit} per route id and publishes its state as metrics.
+ */
+@Component
+public class ConcurrencyLimitRegistry {
+
+    private final Map<String, AdaptiveConcurrencyLimit> limits = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public ConcurrencyLimitRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public AdaptiveConcurrencyLimit getOrCreate(String routeId, Supplier<AdaptiveConcurrencyLimit> factory) {
+        return limits.computeIfAbsent(routeId, id -> {
+            AdaptiveConcurrencyLimit limit = factory.get();
+            Gauge.builder("gateway.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .tag("route", id)
+                    .description("Current adaptive concurrency limit")
+                    .register(meterRegistry);
+            Gauge.builder("gateway.concurrency.inflight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .tag("route", id)
+                    .description("Requests currently in flight to the route")
+                    .register(meterRegistry);
+            FunctionCounter.builder("gateway.concurrency.shed", limit, AdaptiveConcurrencyLimit::getShed)
+                    .tag("route", id)
+                    .description("Requests rejected with 429 because the limit was reached")
+                    .register(meterRegistry);
+            return limit;
+        });
+    }
+
+    /**
+     * The route's limit, or null if the route has no ConcurrencyLimitFilter or has not been called yet.
+     */
+    public AdaptiveConcurrencyLimit get(String routeId) {
+        return limits.get(routeId);
+    }
+
+    public Collection<AdaptiveConcurrencyLimit> all() {
+        return limits.values();
+    }
+}
@@ -0,0 +1,48 @@
+package com.flanux.gateway.limit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gateway-wide budget for extra downstream attempts (hedges). Every request deposits a
+ * fraction of a token and every extra attempt withdraws a whole one, so extra attempts stay
+ * capped at roughly that fraction of traffic and cannot amplify an overload.
+ * Tokens are kept in millionths in one atomic, so neither path takes a lock.
+ */
+@Component
+public class RetryBudget {
+
+    private static final long SCALE = 1_000_000L;
+
+    private final long depositPerRequest;
+    private final long maxTokens;
+    private final AtomicLong tokens;
+
+    public RetryBudget(@Value("${gateway.retry-budget.percent:10}") double percent,
+                       @Value("${gateway.retry-budget.max-tokens:100}") double maxTokens) {
+        this.depositPerRequest = Math.round(percent / 100.0 * SCALE);
+        this.maxTokens = Math.round(maxTokens * SCALE);
+        this.tokens = new AtomicLong(this.maxTokens);
+    }
+
+    public void deposit() {
+        tokens.updateAndGet(current -> Math.min(maxTokens, current + depositPerRequest));
+    }
+
+    public boolean tryWithdraw() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    public double getTokens() {
+        return (double) tokens.get() / SCALE;
+    }
+}
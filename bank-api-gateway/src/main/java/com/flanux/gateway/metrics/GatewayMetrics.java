@@ -0,0 +1,54 @@
+package com.flanux.gateway.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-route traffic metrics plus time spent on JWT verification. Everything is registered
+ * with Micrometer (and so exported to Prometheus) and summarised at {@code /api/gateway/metrics}.
+ */
+@Component
+public class GatewayMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RouteMetrics> routes = new ConcurrentHashMap<>();
+    private final Timer jwtVerification;
+
+    public GatewayMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.jwtVerification = Timer.builder("gateway.auth.jwt")
+                .description("Time spent verifying bearer tokens in AuthenticationFilter")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+    }
+
+    public RouteMetrics route(String routeId) {
+        RouteMetrics metrics = routes.get(routeId);
+        if (metrics == null) {
+            metrics = routes.computeIfAbsent(routeId, id -> new RouteMetrics(id, meterRegistry));
+        }
+        return metrics;
+    }
+
+    public void recordJwtVerification(long nanos) {
+        jwtVerification.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public Map<String, Object> routeSnapshots() {
+        Map<String, Object> snapshots = new TreeMap<>();
+        routes.forEach((routeId, metrics) -> snapshots.put(routeId, metrics.snapshot()));
+        return snapshots;
+    }
+
+    public Map<String, Object> jwtSnapshot() {
+        Map<String, Object> snapshot = RouteMetrics.percentiles(jwtVerification);
+        snapshot.put("verifications", jwtVerification.count());
+        return snapshot;
+    }
+}
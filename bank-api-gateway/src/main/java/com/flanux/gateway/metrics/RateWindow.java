@@ -0,0 +1,51 @@
+package com.flanux.gateway.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Events per second over the last minute, kept in a ring of one-second buckets.
+ * Each bucket packs its second (high 32 bits) and count (low 32 bits) into one long, so
+ * moving a bucket to a new second and counting into it is a single compare-and-set.
+ */
+class RateWindow {
+
+    private static final int SECONDS = 60;
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(SECONDS);
+
+    void record(long nowMillis) {
+        long second = nowMillis / 1000;
+        int slot = (int) (second % SECONDS);
+        while (true) {
+            long bucket = buckets.get(slot);
+            long stamp = bucket >>> 32;
+            long next;
+            if (stamp == second) {
+                next = bucket + 1;
+            } else if (stamp < second) {
+                next = (second << 32) | 1;
+            } else {
+                // A caller with a later clock reading already moved this bucket on
+                return;
+            }
+            if (buckets.compareAndSet(slot, bucket, next)) {
+                return;
+            }
+        }
+    }
+
+    double perSecond(long nowMillis) {
+        long second = nowMillis / 1000;
+        long total = 0;
+        for (int i = 0; i < SECONDS; i++) {
+            long bucket = buckets.get(i);
+            long age = second - (bucket >>> 32);
+            // Skip the bucket still being filled so a partial second does not drag the rate down
+            if (age > 0 && age <= SECONDS) {
+                total += bucket & COUNT_MASK;
+            }
+        }
+        return total / (double) SECONDS;
+    }
+}
@@ -0,0 +1,91 @@
+package com.flanux.gateway.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for one route, created once and reused so the per-request path only records values.
+ */
+public class RouteMetrics {
+
+    private final Timer latency;
+    private final Counter errors;
+    private final Counter bytesIn;
+    private final Counter bytesOut;
+    private final RateWindow requestRate = new RateWindow();
+    private final RateWindow errorRate = new RateWindow();
+
+    RouteMetrics(String routeId, MeterRegistry registry) {
+        this.latency = Timer.builder("gateway.route.latency")
+                .tag("route", routeId)
+                .description("End-to-end request latency through the gateway")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(registry);
+        this.errors = Counter.builder("gateway.route.errors")
+                .tag("route", routeId)
+                .description("Requests that failed or returned 5xx")
+                .register(registry);
+        this.bytesIn = Counter.builder("gateway.route.bytes")
+                .tag("route", routeId)
+                .tag("direction", "in")
+                .baseUnit("bytes")
+                .register(registry);
+        this.bytesOut = Counter.builder("gateway.route.bytes")
+                .tag("route", routeId)
+                .tag("direction", "out")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    public void record(long latencyNanos, boolean failed, long requestBytes, long responseBytes) {
+        long now = System.currentTimeMillis();
+        latency.record(latencyNanos, TimeUnit.NANOSECONDS);
+        requestRate.record(now);
+        if (failed) {
+            errors.increment();
+            errorRate.record(now);
+        }
+        if (requestBytes > 0) {
+            bytesIn.increment(requestBytes);
+        }
+        if (responseBytes > 0) {
+            bytesOut.increment(responseBytes);
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("requests", latency.count());
+        snapshot.put("requestsPerSecond", requestRate.perSecond(now));
+        snapshot.put("errors", (long) errors.count());
+        snapshot.put("errorsPerSecond", errorRate.perSecond(now));
+        snapshot.put("bytesIn", (long) bytesIn.count());
+        snapshot.put("bytesOut", (long) bytesOut.count());
+        snapshot.put("latencyMs", percentiles(latency));
+        return snapshot;
+    }
+
+    static Map<String, Object> percentiles(Timer timer) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("mean", timer.mean(TimeUnit.MILLISECONDS));
+        values.put("max", timer.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+            values.put(label(percentile.percentile()), percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return values;
+    }
+
+    private static String label(double percentile) {
+        if (percentile == 0.5) return "p50";
+        if (percentile == 0.99) return "p99";
+        if (percentile == 0.999) return "p999";
+        return "p" + percentile;
+    }
+}
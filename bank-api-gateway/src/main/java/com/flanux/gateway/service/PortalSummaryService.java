@@ -0,0 +1,151 @@
+package com.flanux.gateway.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.flanux.gateway.util.VerifiedToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Builds the customer portal home screen in one gateway call by fanning out to
+ * account, card, loan and transaction services in parallel. Every leg has its own
+ * timeout; a failed leg is reported under "errors" and the rest of the document is still returned.
+ */
+@Slf4j
+@Service
+public class PortalSummaryService {
+
+    private final WebClient webClient;
+
+    @Value("${portal.summary.account-service-uri:http://account-service:8080}")
+    private String accountServiceUri;
+
+    @Value("${portal.summary.card-service-uri:http://card-service:8080}")
+    private String cardServiceUri;
+
+    @Value("${portal.summary.loan-service-uri:http://loan-service:8080}")
+    private String loanServiceUri;
+
+    @Value("${portal.summary.transaction-service-uri:http://transaction-service:8080}")
+    private String transactionServiceUri;
+
+    @Value("${portal.summary.timeout.accounts:2s}")
+    private Duration accountsTimeout;
+
+    @Value("${portal.summary.timeout.cards:2s}")
+    private Duration cardsTimeout;
+
+    @Value("${portal.summary.timeout.loans:2s}")
+    private Duration loansTimeout;
+
+    @Value("${portal.summary.timeout.transactions:3s}")
+    private Duration transactionsTimeout;
+
+    @Value("${portal.summary.max-accounts:5}")
+    private int maxAccounts;
+
+    @Value("${portal.summary.recent-transactions:10}")
+    private int recentTransactions;
+
+    public PortalSummaryService(WebClient.Builder webClientBuilder) {
+        this.webClient = webClientBuilder.build();
+    }
+
+    public Mono<Map<String, Object>> summary(VerifiedToken token, String authorization) {
+        Map<String, String> errors = new ConcurrentHashMap<>();
+
+        Mono<JsonNode> accounts = leg("accounts", accountServiceUri + "/accounts/my", accountsTimeout,
+                token, authorization, errors).cache();
+        Mono<JsonNode> cards = leg("cards", cardServiceUri + "/cards/my", cardsTimeout,
+                token, authorization, errors);
+        Mono<JsonNode> loans = leg("loans", loanServiceUri + "/loans/my", loansTimeout,
+                token, authorization, errors);
+
+        // Transactions need account ids, so this leg starts as soon as the accounts leg answers
+        Mono<Map<String, JsonNode>> transactions = accounts
+                .flatMapMany(Flux::fromIterable)
+                .filter(account -> account.hasNonNull("id"))
+                .take(maxAccounts)
+                .flatMap(account -> {
+                    String accountId = account.get("id").asText();
+                    return leg("transactions:" + accountId,
+                            transactionServiceUri + "/transactions/my/" + accountId, transactionsTimeout,
+                            token, authorization, errors)
+                            .map(txns -> Map.entry(accountId, latest(txns)));
+                })
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue, LinkedHashMap::new);
+
+        return Mono.zip(orEmpty(accounts), orEmpty(cards), orEmpty(loans), transactions)
+                .map(legs -> {
+                    Map<String, Object> summary = new LinkedHashMap<>();
+                    summary.put("accounts", legs.getT1());
+                    summary.put("cards", legs.getT2());
+                    summary.put("loans", legs.getT3());
+                    summary.put("recentTransactions", legs.getT4());
+                    summary.put("partial", !errors.isEmpty());
+                    summary.put("errors", errors);
+                    summary.put("timestamp", LocalDateTime.now().toString());
+                    return summary;
+                });
+    }
+
+    private Mono<JsonNode> leg(String name, String url, Duration timeout, VerifiedToken token,
+                               String authorization, Map<String, String> errors) {
+        return webClient.get()
+                .uri(url)
+                .headers(headers -> {
+                    headers.set(HttpHeaders.AUTHORIZATION, authorization);
+                    headers.set("X-User-Name", token.getUsername());
+                    headers.set("X-User-Id", token.getUserId() != null ? token.getUserId() : "");
+                    headers.set("X-User-Role", token.getRole() != null ? token.getRole() : "");
+                })
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .map(body -> body.has("data") ? body.get("data") : body)
+                .timeout(timeout)
+                .onErrorResume(e -> {
+                    log.warn("Portal summary leg {} failed: {}", name, e.toString());
+                    errors.put(name, describe(e));
+                    return Mono.empty();
+                });
+    }
+
+    private JsonNode latest(JsonNode transactions) {
+        if (!transactions.isArray() || transactions.size() <= recentTransactions) {
+            return transactions;
+        }
+        ArrayNode trimmed = JsonNodeFactory.instance.arrayNode();
+        for (int i = 0; i < recentTransactions; i++) {
+            trimmed.add(transactions.get(i));
+        }
+        return trimmed;
+    }
+
+    private static Mono<JsonNode> orEmpty(Mono<JsonNode> leg) {
+        return leg.defaultIfEmpty(JsonNodeFactory.instance.arrayNode());
+    }
+
+    private static String describe(Throwable e) {
+        if (e instanceof TimeoutException) {
+            return "timeout";
+        }
+        if (e instanceof WebClientResponseException response) {
+            return "HTTP " + response.getStatusCode().value();
+        }
+        return "unavailable";
+    }
+}
@@ -0,0 +1,117 @@
+package com.flanux.gateway.util;
+
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.security.Key;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Public keys from auth-service's JWK set, indexed by key id. The set is refreshed in the
+ * background and swapped in as a whole, so lookups on the request path are a plain map read.
+ * An unknown key id triggers an early refresh, at most once per {@code jwt.jwks.min-refresh-gap}.
+ */
+@Slf4j
+@Component
+public class JwksKeyCache {
+
+    private final WebClient webClient;
+    private final String jwksUri;
+    private final Duration refreshInterval;
+    private final long minRefreshGapMillis;
+    private final AtomicLong lastOnDemandRefresh = new AtomicLong();
+
+    private volatile Map<String, Key> keys = Map.of();
+    private Disposable refresher;
+
+    public JwksKeyCache(WebClient.Builder webClientBuilder,
+                        @Value("${jwt.jwks.uri:}") String jwksUri,
+                        @Value("${jwt.jwks.refresh-interval:5m}") Duration refreshInterval,
+                        @Value("${jwt.jwks.min-refresh-gap:30s}") Duration minRefreshGap) {
+        this.webClient = webClientBuilder.build();
+        this.jwksUri = jwksUri;
+        this.refreshInterval = refreshInterval;
+        this.minRefreshGapMillis = minRefreshGap.toMillis();
+    }
+
+    public boolean isEnabled() {
+        return !jwksUri.isBlank();
+    }
+
+    @PostConstruct
+    void start() {
+        if (isEnabled()) {
+            refresher = Flux.interval(Duration.ZERO, refreshInterval)
+                    .onBackpressureDrop()
+                    .concatMap(tick -> refresh())
+                    .subscribe();
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (refresher != null) {
+            refresher.dispose();
+        }
+    }
+
+    /**
+     * Returns the verification key for the id, or {@code null} if the current set does not have it.
+     */
+    public Key get(String keyId) {
+        if (keyId == null) {
+            return null;
+        }
+        Key key = keys.get(keyId);
+        if (key == null && isEnabled()) {
+            long now = System.currentTimeMillis();
+            long last = lastOnDemandRefresh.get();
+            if (now - last >= minRefreshGapMillis && lastOnDemandRefresh.compareAndSet(last, now)) {
+                refresh().subscribe();
+            }
+        }
+        return key;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    private Mono<Void> refresh() {
+        return webClient.get()
+                .uri(jwksUri)
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(Duration.ofSeconds(5))
+                .doOnNext(this::update)
+                .doOnError(e -> log.warn("JWKS refresh from {} failed, keeping {} cached keys: {}",
+                        jwksUri, keys.size(), e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    private void update(String json) {
+        JwkSet set = Jwks.setParser().build().parse(json);
+        Map<String, Key> parsed = new HashMap<>();
+        for (Jwk<?> jwk : set.getKeys()) {
+            if (jwk.getId() != null) {
+                parsed.put(jwk.getId(), jwk.toKey());
+            }
+        }
+        keys = Map.copyOf(parsed);
+        log.debug("Loaded {} keys from {}", parsed.size(), jwksUri);
+    }
+}
@@ -1,13 +1,20 @@
 package com.flanux.gateway.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.util.Date;
 import java.util.function.Function;
 
@@ -20,13 +27,66 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    // Keep accepting HS256 tokens signed with jwt.secret, e.g. while moving auth-service to EdDSA/ES256
+    @Value("${jwt.accept-hmac:true}")
+    private boolean acceptHmac;
+
+    @Autowired
+    private TokenCache tokenCache;
+
+    @Autowired
+    private JwksKeyCache jwksKeyCache;
+
+    // Key derivation and parser construction are done once, not per request
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        if (header.getAlgorithm().startsWith("HS")) {
+                            return acceptHmac ? signingKey : null;
+                        }
+                        return jwksKeyCache.get(header.getKeyId());
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Verifies the token once and returns its claims, consulting the token cache first.
+     * Throws {@link JwtException} if the token is malformed, tampered with or expired.
+     */
+    public VerifiedToken verify(String token) {
+        TokenCache.Digest key = TokenCache.digest(token);
+        VerifiedToken cached = tokenCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = extractAllClaims(token);
+        Date exp = claims.getExpiration();
+        if (exp == null) {
+            throw new JwtException("Token has no expiration");
+        }
+
+        // auth-service puts the user id in the subject and the username in its own claim
+        String username = claims.get("username", String.class);
+        VerifiedToken verified = new VerifiedToken(
+                username != null ? username : claims.getSubject(),
+                username != null ? claims.getSubject() : null,
+                claims.get("role", String.class),
+                exp.getTime());
+        tokenCache.put(key, verified);
+        return verified;
     }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).getUsername();
     }
 
     public Date extractExpiration(String token) {
@@ -39,32 +99,23 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     public Boolean validateToken(String token) {
         try {
-            return !isTokenExpired(token);
+            verify(token);
+            return true;
         } catch (Exception e) {
             return false;
         }
     }
 
     public String extractRole(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.get("role", String.class);
+        return verify(token).getRole();
     }
 
     public String extractUserId(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.get("userId", String.class);
+        return verify(token).getUserId();
     }
 }
@@ -0,0 +1,114 @@
+package com.flanux.gateway.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of verified tokens keyed by the SHA-256 digest of the raw token,
+ * so repeat requests with the same bearer token skip signature verification
+ * until the token's own expiry. Callers compute the digest once with {@link #digest}
+ * and use it for both the lookup and the insert.
+ */
+@Component
+public class TokenCache {
+
+    private final Map<Digest, VerifiedToken> entries;
+    private final Counter hits;
+    private final Counter misses;
+
+    public TokenCache(@Value("${jwt.cache.max-size:10000}") int maxSize, MeterRegistry meterRegistry) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Digest, VerifiedToken> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.hits = Counter.builder("gateway.jwt.cache")
+                .tag("result", "hit")
+                .description("JWT verifications answered from cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("gateway.jwt.cache")
+                .tag("result", "miss")
+                .description("JWT verifications that required signature checks")
+                .register(meterRegistry);
+    }
+
+    public static Digest digest(String token) {
+        return Digest.of(token);
+    }
+
+    public VerifiedToken get(Digest key) {
+        VerifiedToken cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+            if (cached != null && cached.isExpired(System.currentTimeMillis())) {
+                entries.remove(key);
+                cached = null;
+            }
+        }
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached;
+    }
+
+    public void put(Digest key, VerifiedToken verified) {
+        synchronized (entries) {
+            entries.put(key, verified);
+        }
+    }
+
+    public long getHits() {
+        return (long) hits.count();
+    }
+
+    public long getMisses() {
+        return (long) misses.count();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public static final class Digest {
+        private final byte[] bytes;
+        private final int hash;
+
+        private Digest(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        private static Digest of(String token) {
+            try {
+                MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+                return new Digest(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Digest other && Arrays.equals(bytes, other.bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
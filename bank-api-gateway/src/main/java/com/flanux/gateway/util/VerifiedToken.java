@@ -0,0 +1,22 @@
+package com.flanux.gateway.util;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Claims of a JWT whose signature and expiry have already been checked.
+ * Parsed once per token and shared by everything downstream in the filter chain.
+ */
+@Getter
+@RequiredArgsConstructor
+public class VerifiedToken {
+
+    private final String username;
+    private final String userId;
+    private final String role;
+    private final long expiresAtMillis;
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
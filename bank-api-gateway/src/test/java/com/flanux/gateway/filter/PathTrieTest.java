@@ -0,0 +1,66 @@
+package com.flanux.gateway.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PathTrieTest {
+
+    // gateway.open-endpoints in application.yml, also RouteValidator's default
+    private static final List<String> OPEN_ENDPOINTS = List.of("/api/auth/**", "/actuator/**", "/fallback/**");
+
+    private static final List<String> PATHS = List.of(
+            "/api/auth",
+            "/api/auth/",
+            "/api/auth/login",
+            "/api/auth/refresh/extra/deep",
+            "//api/auth/login",
+            "/api/authx/login",
+            "/API/auth/login",
+            "/api/v1/auth/login",
+            "/api/accounts/1",
+            "/api",
+            "/",
+            "",
+            "/actuator",
+            "/actuator/health",
+            "/actuatorx",
+            "/fallback/account-service");
+
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+    @Test
+    void matchesLikeAntPathMatcherOnOpenEndpoints() {
+        for (String pattern : OPEN_ENDPOINTS) {
+            assertTrue(PathTrie.isCompilable(pattern), pattern);
+            PathTrie trie = new PathTrie();
+            trie.add(pattern);
+            for (String path : PATHS) {
+                assertEquals(antPathMatcher.match(pattern, path), trie.matches(path), pattern + " vs " + path);
+            }
+        }
+    }
+
+    @Test
+    void combinedTrieMatchesIfAnyPatternMatches() {
+        PathTrie trie = new PathTrie();
+        OPEN_ENDPOINTS.forEach(trie::add);
+        for (String path : PATHS) {
+            boolean expected = OPEN_ENDPOINTS.stream().anyMatch(pattern -> antPathMatcher.match(pattern, path));
+            assertEquals(expected, trie.matches(path), path);
+        }
+    }
+
+    @Test
+    void inSegmentWildcardsAreLeftToAntPathMatcher() {
+        assertFalse(PathTrie.isCompilable("/api/auth/log*"));
+        assertFalse(PathTrie.isCompilable("/api/{service}/health"));
+        assertFalse(PathTrie.isCompilable("/api/auth/?ogin"));
+        assertTrue(PathTrie.isCompilable("/api/*/health"));
+    }
+}
@@ -0,0 +1,20 @@
+-- Refresh tokens are stored as the SHA-256 digest of the token (token_hash, base64url without
+-- padding) instead of the raw token. One-off upgrade for databases created before that change;
+-- fresh installs already get token_hash from 02-auth-db.sql. Existing tokens are hashed in place,
+-- so they keep working. Run it once as the owner of refresh_tokens before deploying the new
+-- auth-service; running it again does nothing:
+--   docker-compose exec database psql -U admin -d auth_db -f /docker-entrypoint-initdb.d/migrations/refresh-token-hash.sql
+-- Files in this folder are not run by the database container on init.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'refresh_tokens' AND column_name = 'token') THEN
+        ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS token_hash VARCHAR(43);
+        UPDATE refresh_tokens
+           SET token_hash = rtrim(translate(encode(sha256(convert_to(token, 'UTF8')), 'base64'), '+/', '-_'), '=')
+         WHERE token_hash IS NULL;
+        ALTER TABLE refresh_tokens ALTER COLUMN token_hash SET NOT NULL;
+        ALTER TABLE refresh_tokens DROP COLUMN token;
+        CREATE UNIQUE INDEX IF NOT EXISTS refresh_tokens_token_hash_key ON refresh_tokens (token_hash);
+    END IF;
+END $$;
@@ -34,6 +34,7 @@ create_topic "account.updated" 3 1
 create_topic "account.closed" 3 1
 create_topic "account.balance.changed" 5 1
 create_topic "account.statement.generated" 2 1
+create_topic "account.cache.invalidated" 1 1
 
 # Customer Events
 create_topic "customer.registered" 3 1
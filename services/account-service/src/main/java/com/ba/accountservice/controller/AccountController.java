@@ -1,17 +1,34 @@
 package com.ba.accountservice.controller;
 import com.ba.accountservice.dto.*;
 import com.ba.accountservice.model.Account;
+import com.ba.accountservice.model.BalanceOperation;
 import com.ba.accountservice.service.AccountService;
+import com.ba.accountservice.service.BalanceChangeRejectedException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/accounts")
 public class AccountController {
     private final AccountService accountService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${accounts.batch.max-size:5000}")
+    private int maxBatchSize;
 
     @GetMapping("/my")
     public ResponseEntity<ApiResponse<List<Account>>> getMyAccounts(
@@ -38,6 +55,11 @@ public class AccountController {
         return ResponseEntity.ok(accountService.getById(id));
     }
 
+    @GetMapping("/{id}/metadata")
+    public ResponseEntity<AccountMetadata> getMetadata(@PathVariable Long id) {
+        return ResponseEntity.ok(accountService.getMetadata(id));
+    }
+
     @GetMapping("/customer/{customerId}")
     public ResponseEntity<List<Account>> getByCustomer(@PathVariable Long customerId) {
         return ResponseEntity.ok(accountService.getByCustomerId(customerId));
@@ -48,11 +70,113 @@ public class AccountController {
         return ResponseEntity.ok(accountService.getByAccountNumber(accountNumber));
     }
 
+    /**
+     * Looks up many accounts by id and/or account number with one query each. There is one result
+     * per requested entry, in request order: the ids first, then the account numbers, each either
+     * with its account or with {@code "found": false}. A repeated id is answered at each position.
+     * {@code found} counts requested entries.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> batch(@RequestBody BatchLookupRequest req) {
+        List<Long> ids = req.getIds() != null ? req.getIds() : List.of();
+        List<String> numbers = req.getAccountNumbers() != null ? req.getAccountNumbers() : List.of();
+        if (ids.size() + numbers.size() > maxBatchSize) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error("At most " + maxBatchSize + " accounts per batch"));
+        }
+
+        StreamingResponseBody body = out -> {
+            // Rows come back in index order, so they are held (at most max-size of them) and
+            // written out in the order they were asked for
+            Map<Long, Account> byId = new HashMap<>();
+            Map<String, Account> byNumber = new HashMap<>();
+            accountService.streamByIds(new HashSet<>(ids), account -> byId.put(account.getId(), account));
+            accountService.streamByAccountNumbers(new HashSet<>(numbers),
+                account -> byNumber.put(account.getAccountNumber(), account));
+
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+                gen.writeStartObject();
+                gen.writeBooleanField("success", true);
+                gen.writeObjectFieldStart("data");
+                gen.writeArrayFieldStart("results");
+                int found = 0;
+                for (Long id : ids) {
+                    found += writeResult(gen, "id", id, byId.get(id));
+                }
+                for (String number : numbers) {
+                    found += writeResult(gen, "accountNumber", number, byNumber.get(number));
+                }
+                gen.writeEndArray();
+                gen.writeNumberField("found", found);
+                gen.writeEndObject();
+                gen.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // Returns 1 if the account was found, 0 otherwise
+    private static int writeResult(JsonGenerator gen, String keyField, Object key, Account account) throws IOException {
+        gen.writeStartObject();
+        gen.writeObjectField(keyField, key);
+        gen.writeBooleanField("found", account != null);
+        if (account != null) {
+            gen.writeObjectField("account", account);
+        }
+        gen.writeEndObject();
+        return account != null ? 1 : 0;
+    }
+
     @PostMapping
     public ResponseEntity<Account> create(@RequestBody CreateAccountRequest req) {
         return ResponseEntity.ok(accountService.create(req));
     }
 
+    @GetMapping("/number/{accountNumber}/metadata")
+    public ResponseEntity<AccountMetadata> getMetadataByNumber(@PathVariable String accountNumber) {
+        // A 404 tells callers the account does not exist, as opposed to a lookup that failed
+        return accountService.findMetadataByAccountNumber(accountNumber)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Idempotency-Key makes a retried credit/debit a no-op instead of a second change
+    @PostMapping("/{id}/credit")
+    public ResponseEntity<ApiResponse<BalanceResponse>> credit(
+            @PathVariable Long id, @RequestBody BalanceRequest req,
+            @RequestHeader(value = "Idempotency-Key", required = false) String operationKey) {
+        return balanceChange(id, () -> accountService.credit(id, req.getAmount(), operationKey));
+    }
+
+    @PostMapping("/{id}/debit")
+    public ResponseEntity<ApiResponse<BalanceResponse>> debit(
+            @PathVariable Long id, @RequestBody BalanceRequest req,
+            @RequestHeader(value = "Idempotency-Key", required = false) String operationKey) {
+        return balanceChange(id, () -> accountService.debit(id, req.getAmount(), operationKey));
+    }
+
+    // Lets callers that lost a response find out whether a keyed change was applied
+    @GetMapping("/operations/{operationKey}")
+    public ResponseEntity<BalanceOperation> getOperation(@PathVariable String operationKey) {
+        return accountService.getOperation(operationKey)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Only definite rejections are a 400; any other error stays a 5xx, as the change may have committed
+    private ResponseEntity<ApiResponse<BalanceResponse>> balanceChange(Long id, Supplier<BigDecimal> change) {
+        try {
+            return ResponseEntity.ok(ApiResponse.ok(new BalanceResponse(id, change.get())));
+        } catch (BalanceChangeRejectedException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @PutMapping("/{id}/hot")
+    public ResponseEntity<Account> setHot(@PathVariable Long id, @RequestParam int slots) {
+        return ResponseEntity.ok(accountService.setHotSlots(id, slots));
+    }
+
     @PutMapping("/{id}/close")
     public ResponseEntity<Account> close(@PathVariable Long id) {
         return ResponseEntity.ok(accountService.close(id));
@@ -0,0 +1,31 @@
+package com.ba.accountservice.dto;
+import com.ba.accountservice.model.Account;
+import lombok.*;
+
+/**
+ * The slowly changing part of an account, cached apart from its balance.
+ */
+@Data @Builder @NoArgsConstructor @AllArgsConstructor
+public class AccountMetadata {
+    private Long id;
+    private String accountNumber;
+    private Account.AccountType accountType;
+    private Account.AccountStatus status;
+    private String currency;
+    private Long customerId;
+    private Long branchId;
+    private Integer hotSlots;
+
+    public static AccountMetadata of(Account account) {
+        return AccountMetadata.builder()
+            .id(account.getId())
+            .accountNumber(account.getAccountNumber())
+            .accountType(account.getAccountType())
+            .status(account.getStatus())
+            .currency(account.getCurrency())
+            .customerId(account.getCustomerId())
+            .branchId(account.getBranchId())
+            .hotSlots(account.getHotSlots())
+            .build();
+    }
+}
@@ -0,0 +1,7 @@
+package com.ba.accountservice.dto;
+import lombok.*;
+import java.math.BigDecimal;
+@Data @NoArgsConstructor @AllArgsConstructor
+public class BalanceRequest {
+    private BigDecimal amount;
+}
@@ -0,0 +1,8 @@
+package com.ba.accountservice.dto;
+import lombok.*;
+import java.math.BigDecimal;
+@Data @NoArgsConstructor @AllArgsConstructor
+public class BalanceResponse {
+    private Long accountId;
+    private BigDecimal balance;
+}
@@ -0,0 +1,9 @@
+package com.ba.accountservice.dto;
+import lombok.*;
+import java.util.ArrayList;
+import java.util.List;
+@Data @NoArgsConstructor @AllArgsConstructor
+public class BatchLookupRequest {
+    private List<Long> ids = new ArrayList<>();
+    private List<String> accountNumbers = new ArrayList<>();
+}
@@ -6,7 +6,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "accounts")
-@Data @Builder @NoArgsConstructor @AllArgsConstructor
+@Data @Builder(toBuilder = true) @NoArgsConstructor @AllArgsConstructor
 public class Account {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -34,19 +34,31 @@ public class Account {
 
     private Long branchId;
 
+    // Number of striped sub-balance slots for hot accounts; 0 = all credits go to balance
+    @Column(name = "hot_slots", nullable = false, columnDefinition = "integer default 0")
+    private Integer hotSlots;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
 
+    // Bumped by JPA saves and by the balance UPDATE in AccountRepository.applyBalanceDelta
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
         if (status == null) status = AccountStatus.ACTIVE;
         if (currency == null) currency = "NPR";
+        if (hotSlots == null) hotSlots = 0;
     }
 
+    public boolean isHot() { return hotSlots != null && hotSlots > 0; }
+
     @PreUpdate
     protected void onUpdate() { updatedAt = LocalDateTime.now(); }
 
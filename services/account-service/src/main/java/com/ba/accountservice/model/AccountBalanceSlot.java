@@ -0,0 +1,27 @@
+package com.ba.accountservice.model;
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+
+/**
+ * One stripe of a hot account's balance. Credits land in a random slot so they do not all
+ * serialize on the accounts row; the account's real balance is its own balance plus all slots.
+ */
+@Entity
+@Table(name = "account_balance_slots",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "slot"}))
+@Data @Builder @NoArgsConstructor @AllArgsConstructor
+public class AccountBalanceSlot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private Integer slot;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal balance;
+}
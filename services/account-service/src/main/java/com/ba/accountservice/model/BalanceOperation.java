@@ -0,0 +1,28 @@
+package com.ba.accountservice.model;
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A keyed credit or debit that has been applied. The row is written in the same transaction as
+ * the balance change, so a retried request with the same key is recognised instead of applied twice.
+ */
+@Entity
+@Table(name = "balance_operations")
+@Data @Builder @NoArgsConstructor @AllArgsConstructor
+public class BalanceOperation {
+    @Id
+    @Column(length = 120)
+    private String operationKey;
+
+    @Column(nullable = false)
+    private Long accountId;
+
+    // Signed: negative for debits
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal delta;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
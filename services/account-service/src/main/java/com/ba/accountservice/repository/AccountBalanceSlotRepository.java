@@ -0,0 +1,38 @@
+package com.ba.accountservice.repository;
+import com.ba.accountservice.model.AccountBalanceSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+public interface AccountBalanceSlotRepository extends JpaRepository<AccountBalanceSlot, Long> {
+
+    // Reads the account's status without locking its row, so parallel credits only contend per slot
+    @Modifying
+    @Query(value = "UPDATE account_balance_slots s SET balance = s.balance + :delta " +
+                   "FROM accounts a WHERE a.id = s.account_id AND a.status = 'ACTIVE' " +
+                   "AND s.account_id = :accountId AND s.slot = :slot", nativeQuery = true)
+    int creditSlot(@Param("accountId") Long accountId, @Param("slot") int slot, @Param("delta") BigDecimal delta);
+
+    // Exact balance of a hot account: its own balance plus every slot
+    @Query(value = "SELECT a.balance + COALESCE((SELECT SUM(s.balance) FROM account_balance_slots s " +
+                   "WHERE s.account_id = a.id), 0) FROM accounts a WHERE a.id = :accountId", nativeQuery = true)
+    BigDecimal totalBalance(@Param("accountId") Long accountId);
+
+    // Same as totalBalance for many accounts in one statement: rows of (account id, total balance)
+    @Query(value = "SELECT a.id, a.balance + COALESCE(SUM(s.balance), 0) FROM accounts a " +
+                   "LEFT JOIN account_balance_slots s ON s.account_id = a.id " +
+                   "WHERE a.id IN (:accountIds) GROUP BY a.id, a.balance", nativeQuery = true)
+    List<Object[]> totalBalances(@Param("accountIds") Collection<Long> accountIds);
+
+    @Modifying
+    @Query(value = "INSERT INTO account_balance_slots (account_id, slot, balance) " +
+                   "SELECT :accountId, s, 0 FROM generate_series(0, :slots - 1) s " +
+                   "ON CONFLICT (account_id, slot) DO NOTHING", nativeQuery = true)
+    int createSlots(@Param("accountId") Long accountId, @Param("slots") int slots);
+
+    @Query(value = "SELECT DISTINCT account_id FROM account_balance_slots WHERE balance <> 0", nativeQuery = true)
+    List<Long> findAccountIdsWithSlotBalance();
+}
@@ -1,9 +1,48 @@
 package com.ba.accountservice.repository;
 import com.ba.accountservice.model.Account;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import jakarta.persistence.QueryHint;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 public interface AccountRepository extends JpaRepository<Account, Long> {
     List<Account> findByCustomerId(Long customerId);
     Optional<Account> findByAccountNumber(String accountNumber);
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+
+    // Row by row through a cursor; must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<Account> streamByIdIn(Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<Account> streamByAccountNumberIn(Collection<String> accountNumbers);
+
+    // Single-statement balance change; empty when the account is missing, not active, or a debit would overdraw it
+    @Query(value = "UPDATE accounts SET balance = balance + :delta, version = version + 1, updated_at = now() " +
+                   "WHERE id = :id AND status = 'ACTIVE' AND (:delta >= 0 OR balance + :delta >= 0) " +
+                   "RETURNING balance", nativeQuery = true)
+    Optional<BigDecimal> applyBalanceDelta(@Param("id") Long id, @Param("delta") BigDecimal delta);
+
+    @Modifying
+    @Query("UPDATE Account a SET a.hotSlots = :slots WHERE a.id = :id")
+    int updateHotSlots(@Param("id") Long id, @Param("slots") int slots);
+
+    // Moves every slot of a hot account into its balance in one statement; the slot rows are
+    // locked only for the duration of the fold
+    @Query(value = "WITH drained AS (" +
+                   "UPDATE account_balance_slots s SET balance = 0 " +
+                   "FROM (SELECT id, balance FROM account_balance_slots " +
+                   "WHERE account_id = :id AND balance <> 0 FOR UPDATE) old " +
+                   "WHERE s.id = old.id RETURNING old.balance AS amount) " +
+                   "UPDATE accounts SET balance = balance + COALESCE((SELECT SUM(amount) FROM drained), 0), " +
+                   "version = version + 1, updated_at = now() " +
+                   "WHERE id = :id RETURNING balance", nativeQuery = true)
+    Optional<BigDecimal> foldSlots(@Param("id") Long id);
 }
@@ -0,0 +1,15 @@
+package com.ba.accountservice.repository;
+import com.ba.accountservice.model.BalanceOperation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.math.BigDecimal;
+public interface BalanceOperationRepository extends JpaRepository<BalanceOperation, String> {
+
+    // 0 when the key was already used; a concurrent duplicate waits here for the first one to commit or roll back
+    @Modifying
+    @Query(value = "INSERT INTO balance_operations (operation_key, account_id, delta, created_at) " +
+                   "VALUES (:key, :accountId, :delta, now()) ON CONFLICT (operation_key) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("key") String key, @Param("accountId") Long accountId, @Param("delta") BigDecimal delta);
+}
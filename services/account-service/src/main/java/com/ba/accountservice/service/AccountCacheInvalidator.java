@@ -0,0 +1,72 @@
+package com.ba.accountservice.service;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Drops changed accounts from the local {@link AccountMetadataCache} and tells the other
+ * account-service instances to do the same. Every instance listens with its own consumer
+ * group, so each one receives every invalidation. The group is named after the instance
+ * ({@code accounts.cache.instance-id}, the host name by default), so a restart rejoins the same
+ * group instead of leaving a new one behind each time.
+ */
+@Slf4j
+@Component @RequiredArgsConstructor
+public class AccountCacheInvalidator {
+    private final AccountMetadataCache cache;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    @Value("${accounts.cache.invalidation-topic:account.cache.invalidated}")
+    private String topic;
+
+    @Value("${accounts.cache.broadcast:true}")
+    private boolean broadcast;
+
+    /**
+     * Invalidates now and again after the surrounding transaction commits, so no instance can
+     * reload the pre-commit state after being told to drop it.
+     */
+    public void invalidate(Long accountId) {
+        cache.invalidate(accountId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(accountId);
+                    publish(accountId);
+                }
+            });
+        } else {
+            publish(accountId);
+        }
+    }
+
+    private void publish(Long accountId) {
+        if (!broadcast) {
+            return;
+        }
+        String key = String.valueOf(accountId);
+        kafkaTemplate.send(topic, key, key).whenComplete((result, ex) -> {
+            if (ex != null) {
+                log.warn("Failed to broadcast cache invalidation for account {}: {}", accountId, ex.getMessage());
+            }
+        });
+    }
+
+    @KafkaListener(topics = "${accounts.cache.invalidation-topic:account.cache.invalidated}",
+                   groupId = "account-cache-${accounts.cache.instance-id:#{T(java.net.InetAddress).getLocalHost().getHostName()}}",
+                   properties = "auto.offset.reset=latest",
+                   autoStartup = "${accounts.cache.broadcast:true}")
+    public void onInvalidation(String accountId) {
+        try {
+            cache.invalidate(Long.valueOf(accountId));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed cache invalidation: {}", accountId);
+        }
+    }
+}
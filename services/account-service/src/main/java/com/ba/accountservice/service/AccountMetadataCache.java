@@ -0,0 +1,134 @@
+package com.ba.accountservice.service;
+import com.ba.accountservice.dto.AccountMetadata;
+import com.ba.accountservice.model.Account;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-process LRU cache of {@link AccountMetadata} by id and account number. Entries are
+ * dropped by {@link AccountCacheInvalidator} when an account changes here or on another
+ * instance, and expire after {@code accounts.cache.ttl} as a safety net. A load that overlaps
+ * any invalidation is returned but not cached, since it may have read the state from before
+ * the change.
+ */
+@Component
+public class AccountMetadataCache {
+    private final Map<Long, Entry> byId;
+    private final Map<String, Long> idByNumber = new ConcurrentHashMap<>();
+    // Bumped by every invalidation; accounts change rarely, so one counter for all of them is enough
+    private final AtomicLong generation = new AtomicLong();
+    private final long ttlMillis;
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer lookups;
+
+    private record Entry(AccountMetadata metadata, long expiresAtMillis) {
+    }
+
+    public AccountMetadataCache(@Value("${accounts.cache.max-size:50000}") int maxSize,
+                                @Value("${accounts.cache.ttl:300000}") long ttlMillis,
+                                MeterRegistry meterRegistry) {
+        this.byId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() <= maxSize) {
+                    return false;
+                }
+                idByNumber.remove(eldest.getValue().metadata().getAccountNumber(), eldest.getKey());
+                return true;
+            }
+        };
+        this.ttlMillis = ttlMillis;
+        this.hits = Counter.builder("accounts.cache.requests").tag("result", "hit")
+            .description("Account metadata lookups answered from cache").register(meterRegistry);
+        this.misses = Counter.builder("accounts.cache.requests").tag("result", "miss")
+            .description("Account metadata lookups that went to the database").register(meterRegistry);
+        this.lookups = Timer.builder("accounts.cache.lookup")
+            .description("Account metadata lookup latency, including database loads on a miss")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        Gauge.builder("accounts.cache.size", this, AccountMetadataCache::size).register(meterRegistry);
+    }
+
+    public Optional<AccountMetadata> getById(Long id, Supplier<Optional<Account>> loader) {
+        return lookups.record(() -> {
+            AccountMetadata cached = fresh(id);
+            return cached != null ? Optional.of(cached) : load(loader);
+        });
+    }
+
+    public Optional<AccountMetadata> getByAccountNumber(String accountNumber, Supplier<Optional<Account>> loader) {
+        return lookups.record(() -> {
+            Long id = idByNumber.get(accountNumber);
+            AccountMetadata cached = id != null ? fresh(id) : null;
+            return cached != null ? Optional.of(cached) : load(loader);
+        });
+    }
+
+    /**
+     * Runs a full account read that has to reach the database anyway (it returns the balance)
+     * and caches the metadata of the row it returns, under the same staleness rule as a load.
+     */
+    public Optional<Account> readThrough(Supplier<Optional<Account>> loader) {
+        long before = generation.get();
+        Optional<Account> loaded = loader.get();
+        loaded.ifPresent(account -> put(AccountMetadata.of(account), before));
+        return loaded;
+    }
+
+    public void invalidate(Long id) {
+        synchronized (byId) {
+            generation.incrementAndGet();
+            Entry removed = byId.remove(id);
+            if (removed != null) {
+                idByNumber.remove(removed.metadata().getAccountNumber(), id);
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (byId) {
+            return byId.size();
+        }
+    }
+
+    private AccountMetadata fresh(Long id) {
+        Entry entry;
+        synchronized (byId) {
+            entry = byId.get(id);
+        }
+        if (entry == null || System.currentTimeMillis() >= entry.expiresAtMillis()) {
+            return null;
+        }
+        hits.increment();
+        return entry.metadata();
+    }
+
+    private Optional<AccountMetadata> load(Supplier<Optional<Account>> loader) {
+        misses.increment();
+        long before = generation.get();
+        Optional<AccountMetadata> loaded = loader.get().map(AccountMetadata::of);
+        loaded.ifPresent(metadata -> put(metadata, before));
+        return loaded;
+    }
+
+    private void put(AccountMetadata metadata, long loadedAtGeneration) {
+        synchronized (byId) {
+            if (generation.get() != loadedAtGeneration) {
+                return;
+            }
+            byId.put(metadata.getId(), new Entry(metadata, System.currentTimeMillis() + ttlMillis));
+            idByNumber.put(metadata.getAccountNumber(), metadata.getId());
+        }
+    }
+}
@@ -1,33 +1,137 @@
 package com.ba.accountservice.service;
+import com.ba.accountservice.dto.AccountMetadata;
 import com.ba.accountservice.dto.CreateAccountRequest;
 import com.ba.accountservice.model.Account;
+import com.ba.accountservice.model.BalanceOperation;
+import com.ba.accountservice.repository.AccountBalanceSlotRepository;
 import com.ba.accountservice.repository.AccountRepository;
+import com.ba.accountservice.repository.BalanceOperationRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service @RequiredArgsConstructor
 public class AccountService {
+    // Hot accounts per grouped slot-total query while streaming a batch
+    private static final int SLOT_TOTALS_CHUNK = 500;
+
     private final AccountRepository accountRepository;
+    private final AccountBalanceSlotRepository slotRepository;
+    private final BalanceOperationRepository operationRepository;
+    private final AccountMetadataCache metadataCache;
+    private final AccountCacheInvalidator cacheInvalidator;
+    private final EntityManager entityManager;
 
     public List<Account> getByCustomerId(Long customerId) {
-        return accountRepository.findByCustomerId(customerId);
+        return withSlots(accountRepository.findByCustomerId(customerId));
     }
 
+    // Full reads carry the balance, so they always hit the database; they warm the metadata
+    // cache for the transfer-path lookups that follow
     public Account getById(Long id) {
-        return accountRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Account not found: " + id));
+        return withSlots(metadataCache.readThrough(() -> accountRepository.findById(id))
+            .orElseThrow(() -> new RuntimeException("Account not found: " + id)));
     }
 
     public Account getByAccountNumber(String accountNumber) {
-        return accountRepository.findByAccountNumber(accountNumber)
-            .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
+        return withSlots(metadataCache.readThrough(() -> accountRepository.findByAccountNumber(accountNumber))
+            .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber)));
     }
 
     public List<Account> getAll() {
-        return accountRepository.findAll();
+        return withSlots(accountRepository.findAll());
+    }
+
+    /**
+     * Type, status, currency and owner of an account, served from {@link AccountMetadataCache}.
+     */
+    public AccountMetadata getMetadata(Long id) {
+        return metadataCache.getById(id, () -> accountRepository.findById(id))
+            .orElseThrow(() -> new RuntimeException("Account not found: " + id));
+    }
+
+    public Optional<AccountMetadata> findMetadataByAccountNumber(String accountNumber) {
+        return metadataCache.getByAccountNumber(accountNumber, () -> accountRepository.findByAccountNumber(accountNumber));
+    }
+
+    /**
+     * Resolves many accounts with one IN query, handing each one to the consumer as its row is
+     * read. Ids with no account are simply never passed on.
+     */
+    @Transactional(readOnly = true)
+    public void streamByIds(Collection<Long> ids, Consumer<Account> consumer) {
+        if (!ids.isEmpty()) {
+            try (Stream<Account> accounts = accountRepository.streamByIdIn(ids)) {
+                forEachWithSlots(accounts, consumer);
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void streamByAccountNumbers(Collection<String> accountNumbers, Consumer<Account> consumer) {
+        if (!accountNumbers.isEmpty()) {
+            try (Stream<Account> accounts = accountRepository.streamByAccountNumberIn(accountNumbers)) {
+                forEachWithSlots(accounts, consumer);
+            }
+        }
+    }
+
+    // Rows are detached as they are read so the persistence context does not grow with the batch.
+    // Hot accounts are held back and get their slot totals a chunk at a time.
+    private void forEachWithSlots(Stream<Account> accounts, Consumer<Account> consumer) {
+        List<Account> hot = new ArrayList<>();
+        accounts.forEach(account -> {
+            entityManager.detach(account);
+            if (!account.isHot()) {
+                consumer.accept(account);
+                return;
+            }
+            hot.add(account);
+            if (hot.size() >= SLOT_TOTALS_CHUNK) {
+                withSlots(hot).forEach(consumer);
+                hot.clear();
+            }
+        });
+        withSlots(hot).forEach(consumer);
+    }
+
+    private Account find(Long id) {
+        return accountRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Account not found: " + id));
+    }
+
+    // Detached copy with the slot credits included; the managed entity keeps only its own balance
+    private Account withSlots(Account account) {
+        if (!account.isHot()) {
+            return account;
+        }
+        return account.toBuilder().balance(slotRepository.totalBalance(account.getId())).build();
+    }
+
+    // Same for a list, with one grouped query for all of its hot accounts
+    private List<Account> withSlots(List<Account> accounts) {
+        List<Long> hotIds = accounts.stream().filter(Account::isHot).map(Account::getId).toList();
+        if (hotIds.isEmpty()) {
+            return accounts;
+        }
+        Map<Long, BigDecimal> totals = new HashMap<>();
+        for (Object[] row : slotRepository.totalBalances(hotIds)) {
+            totals.put(((Number) row[0]).longValue(), (BigDecimal) row[1]);
+        }
+        return accounts.stream()
+            .map(a -> totals.containsKey(a.getId()) ? a.toBuilder().balance(totals.get(a.getId())).build() : a)
+            .toList();
     }
 
     @Transactional
@@ -41,21 +145,136 @@ public class AccountService {
             .customerId(req.getCustomerId())
             .branchId(req.getBranchId())
             .build();
-        return accountRepository.save(account);
+        Account saved = accountRepository.save(account);
+        cacheInvalidator.invalidate(saved.getId());
+        return saved;
     }
 
     @Transactional
     public Account close(Long id) {
-        Account account = getById(id);
+        Account account = find(id);
         account.setStatus(Account.AccountStatus.INACTIVE);
-        return accountRepository.save(account);
+        Account saved = accountRepository.save(account);
+        cacheInvalidator.invalidate(id);
+        return saved;
+    }
+
+    @Transactional
+    public BigDecimal credit(Long id, BigDecimal amount) {
+        return credit(id, amount, null);
     }
 
     @Transactional
-    public Account updateBalance(Long id, BigDecimal amount) {
-        Account account = getById(id);
-        account.setBalance(account.getBalance().add(amount));
-        return accountRepository.save(account);
+    public BigDecimal debit(Long id, BigDecimal amount) {
+        return debit(id, amount, null);
+    }
+
+    /**
+     * Credit applied at most once per operation key; a repeated key returns the current balance.
+     */
+    @Transactional
+    public BigDecimal credit(Long id, BigDecimal amount, String operationKey) {
+        requirePositive(amount);
+        return applyOnce(id, amount, operationKey);
+    }
+
+    @Transactional
+    public BigDecimal debit(Long id, BigDecimal amount, String operationKey) {
+        requirePositive(amount);
+        return applyOnce(id, amount.negate(), operationKey);
+    }
+
+    public Optional<BalanceOperation> getOperation(String operationKey) {
+        return operationRepository.findById(operationKey);
+    }
+
+    // The key row commits or rolls back together with the balance change
+    private BigDecimal applyOnce(Long id, BigDecimal delta, String operationKey) {
+        if (operationKey == null || operationKey.isBlank()) {
+            return updateBalance(id, delta);
+        }
+        if (operationRepository.insertIfAbsent(operationKey, id, delta) == 0) {
+            BalanceOperation applied = operationRepository.findById(operationKey)
+                .orElseThrow(() -> new RuntimeException("Operation not found: " + operationKey));
+            if (!applied.getAccountId().equals(id) || applied.getDelta().compareTo(delta) != 0) {
+                throw new BalanceChangeRejectedException("Operation key already used for a different change: " + operationKey);
+            }
+            return withSlots(find(id)).getBalance();
+        }
+        return updateBalance(id, delta);
+    }
+
+    /**
+     * Applies the delta in one UPDATE ... RETURNING, so concurrent writers cannot lose updates.
+     * Credits to a hot account go to a random sub-balance slot instead of the accounts row;
+     * a debit the account's own balance cannot cover folds the slots in first and retries.
+     * The account is only read to explain a rejected change.
+     */
+    @Transactional
+    public BigDecimal updateBalance(Long id, BigDecimal delta) {
+        // A stale slot count is harmless: slot rows are never removed and the SQL re-checks status
+        int slots = metadataCache.getById(id, () -> accountRepository.findById(id))
+            .orElseThrow(() -> new BalanceChangeRejectedException("Account not found: " + id))
+            .getHotSlots();
+
+        if (slots > 0 && delta.signum() > 0) {
+            int slot = ThreadLocalRandom.current().nextInt(slots);
+            if (slotRepository.creditSlot(id, slot, delta) == 0) {
+                throw rejected(id);
+            }
+            return slotRepository.totalBalance(id);
+        }
+
+        Optional<BigDecimal> balance = accountRepository.applyBalanceDelta(id, delta);
+        if (balance.isEmpty() && slots > 0) {
+            accountRepository.foldSlots(id);
+            balance = accountRepository.applyBalanceDelta(id, delta);
+        }
+        BigDecimal updated = balance.orElseThrow(() -> rejected(id));
+        return slots > 0 ? slotRepository.totalBalance(id) : updated;
+    }
+
+    /**
+     * Turns hot-account mode on with the given number of slots, or off with 0. Credits already
+     * in slots beyond the new count are folded into the balance by {@link AccountSlotFolder}.
+     */
+    @Transactional
+    public Account setHotSlots(Long id, int slots) {
+        if (slots < 0) {
+            throw new RuntimeException("Slot count must not be negative");
+        }
+        if (accountRepository.updateHotSlots(id, slots) == 0) {
+            throw new RuntimeException("Account not found: " + id);
+        }
+        if (slots > 0) {
+            slotRepository.createSlots(id, slots);
+        }
+        cacheInvalidator.invalidate(id);
+        // Not through the cache: a rollback would leave the uncommitted slot count cached
+        return withSlots(find(id));
+    }
+
+    @Transactional
+    public BigDecimal foldSlots(Long id) {
+        return accountRepository.foldSlots(id)
+            .orElseThrow(() -> new RuntimeException("Account not found: " + id));
+    }
+
+    private BalanceChangeRejectedException rejected(Long id) {
+        Optional<Account> account = accountRepository.findById(id);
+        if (account.isEmpty()) {
+            return new BalanceChangeRejectedException("Account not found: " + id);
+        }
+        if (account.get().getStatus() != Account.AccountStatus.ACTIVE) {
+            return new BalanceChangeRejectedException("Account is not active: " + id);
+        }
+        return new BalanceChangeRejectedException("Insufficient funds in account: " + id);
+    }
+
+    private static void requirePositive(BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new BalanceChangeRejectedException("Amount must be positive");
+        }
     }
 
     private String generateAccountNumber() {
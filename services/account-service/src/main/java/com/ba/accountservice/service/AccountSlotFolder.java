@@ -0,0 +1,28 @@
+package com.ba.accountservice.service;
+import com.ba.accountservice.repository.AccountBalanceSlotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically moves hot-account slot credits into Account.balance, so the accounts row
+ * stays close to the real balance and debits rarely have to fold on their own.
+ */
+@Slf4j
+@Component @RequiredArgsConstructor
+public class AccountSlotFolder {
+    private final AccountBalanceSlotRepository slotRepository;
+    private final AccountService accountService;
+
+    @Scheduled(fixedDelayString = "${accounts.hot.fold-interval:10000}")
+    public void fold() {
+        for (Long accountId : slotRepository.findAccountIdsWithSlotBalance()) {
+            try {
+                accountService.foldSlots(accountId);
+            } catch (RuntimeException e) {
+                log.warn("Folding slots of account {} failed: {}", accountId, e.getMessage());
+            }
+        }
+    }
+}
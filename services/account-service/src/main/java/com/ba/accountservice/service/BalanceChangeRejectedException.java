@@ -0,0 +1,12 @@
+package com.ba.accountservice.service;
+
+/**
+ * A credit or debit that was definitely not applied: missing or inactive account, insufficient
+ * funds, a non-positive amount, or an operation key already used for a different change.
+ * Answered with 400; any other failure is a 5xx, since the change may have committed.
+ */
+public class BalanceChangeRejectedException extends RuntimeException {
+    public BalanceChangeRejectedException(String message) {
+        super(message);
+    }
+}
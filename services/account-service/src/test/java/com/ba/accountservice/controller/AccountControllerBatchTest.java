@@ -0,0 +1,94 @@
+package com.ba.accountservice.controller;
+
+import com.ba.accountservice.dto.BatchLookupRequest;
+import com.ba.accountservice.model.Account;
+import com.ba.accountservice.service.AccountService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class AccountControllerBatchTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private static Account account(long id) {
+        return Account.builder().id(id).accountNumber("ACC" + id).build();
+    }
+
+    // The repository answers in index order, whatever order the keys were asked in
+    private AccountController controller(List<Long> existing) {
+        AccountService accountService = mock(AccountService.class);
+        doAnswer(call -> {
+            Collection<Long> ids = call.getArgument(0);
+            Consumer<Account> consumer = call.getArgument(1);
+            existing.stream().sorted().filter(ids::contains).forEach(id -> consumer.accept(account(id)));
+            return null;
+        }).when(accountService).streamByIds(anyCollection(), any());
+        doAnswer(call -> {
+            Collection<String> numbers = call.getArgument(0);
+            Consumer<Account> consumer = call.getArgument(1);
+            existing.stream().sorted().map(AccountControllerBatchTest::account)
+                .filter(account -> numbers.contains(account.getAccountNumber()))
+                .forEach(consumer);
+            return null;
+        }).when(accountService).streamByAccountNumbers(anyCollection(), any());
+
+        AccountController controller = new AccountController(accountService, objectMapper);
+        ReflectionTestUtils.setField(controller, "maxBatchSize", 5000);
+        return controller;
+    }
+
+    private JsonNode post(AccountController controller, BatchLookupRequest req) throws Exception {
+        ResponseEntity<?> response = controller.batch(req);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(out);
+        return objectMapper.readTree(out.toByteArray()).get("data");
+    }
+
+    @Test
+    void answersInRequestOrderWithMissesInPlace() throws Exception {
+        BatchLookupRequest req = new BatchLookupRequest(List.of(30L, 10L, 99L, 20L, 10L), List.of("ACC20", "NOPE", "ACC10"));
+
+        JsonNode data = post(controller(List.of(10L, 20L, 30L)), req);
+
+        JsonNode results = data.get("results");
+        assertEquals(8, results.size());
+        long[] ids = { 30, 10, 99, 20, 10 };
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(ids[i], results.get(i).get("id").asLong());
+        }
+        assertFalse(results.get(2).get("found").asBoolean());
+        assertFalse(results.get(2).has("account"));
+        assertEquals(30L, results.get(0).get("account").get("id").asLong());
+        assertEquals("ACC20", results.get(5).get("accountNumber").asText());
+        assertEquals("NOPE", results.get(6).get("accountNumber").asText());
+        assertFalse(results.get(6).get("found").asBoolean());
+        assertEquals(10L, results.get(7).get("account").get("id").asLong());
+        assertEquals(6, data.get("found").asInt());
+    }
+
+    @Test
+    void rejectsBatchesOverTheLimit() {
+        AccountController controller = controller(List.of());
+        ReflectionTestUtils.setField(controller, "maxBatchSize", 2);
+
+        ResponseEntity<?> response = controller.batch(new BatchLookupRequest(List.of(1L, 2L), List.of("ACC3")));
+
+        assertEquals(400, response.getStatusCode().value());
+    }
+}
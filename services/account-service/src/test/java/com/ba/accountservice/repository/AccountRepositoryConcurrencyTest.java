@@ -0,0 +1,181 @@
+package com.ba.accountservice.repository;
+
+import com.ba.accountservice.model.Account;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Concurrent credits and debits through the single-statement balance UPDATE, on a real Postgres,
+// and its throughput against the load-add-save path it replaced
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class AccountRepositoryConcurrencyTest {
+
+    private static final int WRITERS = 64;
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        // One connection per writer, so the row lock and not the pool is what they contend on
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> WRITERS);
+    }
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Account account(String balance) {
+        return accountRepository.save(Account.builder()
+                .accountNumber(UUID.randomUUID().toString())
+                .accountType(Account.AccountType.SAVINGS)
+                .balance(new BigDecimal(balance))
+                .customerId(1L)
+                .build());
+    }
+
+    // Each call commits on its own, as AccountService's credit and debit do
+    private List<Optional<BigDecimal>> applyConcurrently(Long id, List<BigDecimal> deltas) throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        return concurrently(deltas, delta -> tx.execute(status -> accountRepository.applyBalanceDelta(id, delta)));
+    }
+
+    private <T> List<T> concurrently(List<BigDecimal> deltas, Function<BigDecimal, T> change) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (BigDecimal delta : deltas) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return change.apply(delta);
+            }));
+        }
+        start.countDown();
+
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get(60, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+        return results;
+    }
+
+    // The pre-UPDATE path: load, add in Java, save. With @Version on the entity a concurrent save
+    // fails instead of losing an update, so it is retried until it lands; returns the attempts
+    private int readModifyWrite(Long id, BigDecimal delta) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                tx.executeWithoutResult(status -> {
+                    Account account = accountRepository.findById(id).orElseThrow();
+                    account.setBalance(account.getBalance().add(delta));
+                    accountRepository.save(account);
+                });
+                return attempt;
+            } catch (ObjectOptimisticLockingFailureException e) {
+                // Lost the race to another writer; reload and try again
+            }
+        }
+    }
+
+    private BigDecimal balance(Long id) {
+        return accountRepository.findById(id).orElseThrow().getBalance();
+    }
+
+    @Test
+    void concurrentCreditsAndDebitsKeepEveryChange() throws Exception {
+        Account account = account("1000.00");
+        List<BigDecimal> deltas = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            deltas.add(i % 2 == 0 ? new BigDecimal("25.50") : new BigDecimal("-10.25"));
+        }
+
+        List<Optional<BigDecimal>> results = applyConcurrently(account.getId(), deltas);
+
+        assertTrue(results.stream().allMatch(Optional::isPresent));
+        BigDecimal expected = new BigDecimal("1000.00")
+                .add(new BigDecimal("25.50").multiply(BigDecimal.valueOf(100)))
+                .subtract(new BigDecimal("10.25").multiply(BigDecimal.valueOf(100)));
+        assertEquals(0, expected.compareTo(balance(account.getId())));
+    }
+
+    @Test
+    void concurrentDebitsNeverOverdraw() throws Exception {
+        Account account = account("100.00");
+        List<BigDecimal> deltas = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            deltas.add(new BigDecimal("-10.00"));
+        }
+
+        List<Optional<BigDecimal>> results = applyConcurrently(account.getId(), deltas);
+
+        assertEquals(10, results.stream().filter(Optional::isPresent).count());
+        assertEquals(0, BigDecimal.ZERO.compareTo(balance(account.getId())));
+    }
+
+    @Test
+    void singleStatementUpdateOutpacesReadModifyWrite() throws Exception {
+        int changes = 2_000;
+        List<BigDecimal> deltas = Collections.nCopies(changes, new BigDecimal("1.00"));
+
+        // Warm up the pool, Hibernate and both statement paths
+        Long warmup = account("0.00").getId();
+        applyConcurrently(warmup, deltas.subList(0, 200));
+        concurrently(deltas.subList(0, 200), delta -> readModifyWrite(warmup, delta));
+
+        Long rmwId = account("0.00").getId();
+        long start = System.nanoTime();
+        List<Integer> attempts = concurrently(deltas, delta -> readModifyWrite(rmwId, delta));
+        double readModifyWrite = changes / ((System.nanoTime() - start) / 1e9);
+
+        Long atomicId = account("0.00").getId();
+        start = System.nanoTime();
+        List<Optional<BigDecimal>> results = applyConcurrently(atomicId, deltas);
+        double singleStatement = changes / ((System.nanoTime() - start) / 1e9);
+
+        assertTrue(results.stream().allMatch(Optional::isPresent));
+        assertEquals(0, new BigDecimal("2000.00").compareTo(balance(atomicId)));
+        assertEquals(0, new BigDecimal("2000.00").compareTo(balance(rmwId)));
+        int retries = attempts.stream().mapToInt(Integer::intValue).sum() - changes;
+        System.out.printf("%,d changes from %d writers to one account: %,.0f/s read-modify-write (%,d retries), "
+                + "%,.0f/s single UPDATE (%.1fx)%n",
+            changes, WRITERS, readModifyWrite, retries, singleStatement, singleStatement / readModifyWrite);
+        assertTrue(singleStatement > readModifyWrite,
+            "single UPDATE " + singleStatement + "/s vs read-modify-write " + readModifyWrite + "/s");
+    }
+}
@@ -0,0 +1,188 @@
+package com.ba.accountservice.service;
+
+import com.ba.accountservice.model.Account;
+import com.ba.accountservice.model.AccountBalanceSlot;
+import com.ba.accountservice.repository.AccountBalanceSlotRepository;
+import com.ba.accountservice.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+
+// Hot-account credits spread over sub-balance slots from many writers, folded back into the
+// accounts row, while the slot count is scaled up, down and off, on a real Postgres
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+@Import({AccountService.class, AccountMetadataCache.class, SimpleMeterRegistry.class})
+class AccountServiceHotSlotsTest {
+
+    private static final int WRITERS = 64;
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> WRITERS);
+    }
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountBalanceSlotRepository slotRepository;
+
+    @Autowired
+    private AccountMetadataCache metadataCache;
+
+    // No Kafka here; the local half of the invalidation is all a single instance needs
+    @MockBean
+    private AccountCacheInvalidator cacheInvalidator;
+
+    @BeforeEach
+    void invalidateLocally() {
+        doAnswer(call -> {
+            metadataCache.invalidate(call.getArgument(0));
+            return null;
+        }).when(cacheInvalidator).invalidate(anyLong());
+    }
+
+    private Long account(String balance) {
+        return accountRepository.save(Account.builder()
+                .accountNumber(UUID.randomUUID().toString())
+                .accountType(Account.AccountType.CHECKING)
+                .balance(new BigDecimal(balance))
+                .customerId(1L)
+                .build()).getId();
+    }
+
+    // Credits of 0.25 to 6.25, so a lost or doubled credit cannot cancel out; returns their sum
+    private BigDecimal creditConcurrently(Long id, int credits) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<BigDecimal>> futures = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < credits; i++) {
+            BigDecimal amount = new BigDecimal(i % 25 + 1).multiply(new BigDecimal("0.25"));
+            total = total.add(amount);
+            futures.add(pool.submit(() -> {
+                start.await();
+                return accountService.credit(id, amount);
+            }));
+        }
+        start.countDown();
+
+        for (Future<BigDecimal> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        return total;
+    }
+
+    private List<AccountBalanceSlot> slots(Long id) {
+        return slotRepository.findAll().stream().filter(s -> s.getAccountId().equals(id)).toList();
+    }
+
+    private Set<Integer> creditedSlots(Long id) {
+        return slots(id).stream().filter(s -> s.getBalance().signum() != 0)
+                .map(AccountBalanceSlot::getSlot).collect(Collectors.toSet());
+    }
+
+    private BigDecimal rowBalance(Long id) {
+        return accountRepository.findById(id).orElseThrow().getBalance();
+    }
+
+    private static void assertAmount(BigDecimal expected, BigDecimal actual) {
+        assertEquals(0, expected.compareTo(actual), "expected " + expected + " but was " + actual);
+    }
+
+    @Test
+    void parallelCreditsAcrossSlotsFoldToTheExactBalance() throws Exception {
+        Long id = account("100.00");
+        accountService.setHotSlots(id, 8);
+
+        BigDecimal expected = new BigDecimal("100.00").add(creditConcurrently(id, 2_000));
+
+        // Credits land in the slots, not the contended accounts row
+        assertAmount(new BigDecimal("100.00"), rowBalance(id));
+        assertTrue(creditedSlots(id).size() > 1, "credits used slots " + creditedSlots(id));
+        assertAmount(expected, accountService.getById(id).getBalance());
+
+        assertAmount(expected, accountService.foldSlots(id));
+        assertAmount(expected, rowBalance(id));
+        assertTrue(creditedSlots(id).isEmpty());
+        assertAmount(expected, accountService.getById(id).getBalance());
+    }
+
+    @Test
+    void scalingSlotsUpDownAndOffKeepsEveryCredit() throws Exception {
+        Long id = account("0.00");
+        accountService.setHotSlots(id, 4);
+        BigDecimal expected = creditConcurrently(id, 500);
+        assertTrue(creditedSlots(id).stream().allMatch(slot -> slot < 4));
+
+        accountService.setHotSlots(id, 16);
+        assertEquals(16, slots(id).size());
+        expected = expected.add(creditConcurrently(id, 1_000));
+        assertTrue(creditedSlots(id).stream().anyMatch(slot -> slot >= 4), "credits used slots " + creditedSlots(id));
+        assertAmount(expected, accountService.getById(id).getBalance());
+
+        // Slots beyond the new count keep their credits until folded, and still count
+        accountService.setHotSlots(id, 2);
+        assertEquals(16, slots(id).size());
+        expected = expected.add(creditConcurrently(id, 500));
+        assertAmount(expected, accountService.getById(id).getBalance());
+
+        // More than the row holds: the debit folds the slots in and then succeeds
+        BigDecimal debit = expected.subtract(new BigDecimal("1.00"));
+        assertAmount(new BigDecimal("1.00"), accountService.debit(id, debit));
+        expected = new BigDecimal("1.00");
+        assertTrue(creditedSlots(id).isEmpty());
+
+        accountService.setHotSlots(id, 0);
+        expected = expected.add(creditConcurrently(id, 500));
+        assertTrue(creditedSlots(id).isEmpty());
+        assertAmount(expected, rowBalance(id));
+
+        new AccountSlotFolder(slotRepository, accountService).fold();
+        assertFalse(slotRepository.findAccountIdsWithSlotBalance().contains(id));
+        assertAmount(expected, accountService.getById(id).getBalance());
+    }
+}
@@ -23,6 +23,7 @@ public class SecurityConfig {
                     "/api/auth/register",
                     "/api/auth/refresh",
                     "/api/auth/health",
+                    "/api/auth/.well-known/jwks.json",
                     "/actuator/**"
                 ).permitAll()
                 .anyRequest().permitAll()
@@ -2,12 +2,16 @@ package com.ba.authservice.controller;
 
 import com.ba.authservice.dto.*;
 import com.ba.authservice.service.AuthService;
+import com.ba.authservice.service.PasswordHashingOverloadedException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -18,13 +22,34 @@ public class AuthController {
     private final AuthService authService;
     
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request) {
+    public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody LoginRequest request) {
+        CompletableFuture<LoginResponse> login;
         try {
-            LoginResponse response = authService.login(request);
-            return ResponseEntity.ok(response);
+            login = authService.login(request);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(loginFailed(e));
+        }
+        // Async result: the request thread is released while the password is hashed
+        return login.<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(e -> loginFailed(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e));
+    }
+    
+    private ResponseEntity<?> loginFailed(Throwable e) {
+        if (e instanceof PasswordHashingOverloadedException overloaded) {
+            return ResponseEntity.status(503)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(overloaded.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+        }
+        System.err.println("Login failed: " + e.getMessage());
+        return ResponseEntity.status(401)
+            .body(Map.of("error", e.getMessage()));
+    }
+    
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshRequest request) {
+        try {
+            return ResponseEntity.ok(authService.refresh(request.getRefreshToken()));
         } catch (RuntimeException e) {
-            System.err.println("Login failed: " + e.getMessage());
-            e.printStackTrace();
             return ResponseEntity.status(401)
                 .body(Map.of("error", e.getMessage()));
         }
@@ -37,8 +62,13 @@ public class AuthController {
     }
     
     @GetMapping("/me")
-    public ResponseEntity<UserDto> getCurrentUser(@RequestHeader("X-User-Id") Long userId) {
-        UserDto user = authService.getCurrentUser(userId);
+    public ResponseEntity<UserDto> getCurrentUser(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+            ? authorization.substring(7)
+            : null;
+        UserDto user = authService.getCurrentUser(userId, accessToken);
         return ResponseEntity.ok(user);
     }
     
@@ -19,8 +19,9 @@ public class RefreshToken {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
     
-    @Column(unique = true, nullable = false, length = 500)
-    private String token;
+    // SHA-256 of the token, base64url; the raw token is never stored
+    @Column(name = "token_hash", unique = true, nullable = false, length = 43)
+    private String tokenHash;
     
     @Column(name = "expires_at", nullable = false)
     private LocalDateTime expiresAt;
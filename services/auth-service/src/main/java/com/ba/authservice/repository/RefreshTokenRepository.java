@@ -4,12 +4,32 @@ import com.ba.authservice.model.RefreshToken;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
-    Optional<RefreshToken> findByToken(String token);
-    
     @Modifying
     @Query("UPDATE RefreshToken rt SET rt.revoked = true WHERE rt.user.id = :userId")
     void revokeAllUserTokens(Long userId);
+    
+    /**
+     * Revokes the token if it is still valid and returns its user. This conditional update is
+     * what makes rotation single-use across all instances.
+     */
+    @Transactional
+    @Query(value = "UPDATE refresh_tokens SET revoked = true " +
+                   "WHERE token_hash = :tokenHash AND revoked = false AND expires_at > :now RETURNING user_id",
+           nativeQuery = true)
+    Optional<Long> consume(@Param("tokenHash") String tokenHash, @Param("now") LocalDateTime now);
+    
+    // Used when a token is refreshed before the flusher has inserted it
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO refresh_tokens (user_id, token_hash, expires_at, revoked, created_at) " +
+                   "VALUES (:userId, :tokenHash, :expiresAt, false, :createdAt) ON CONFLICT (token_hash) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("tokenHash") String tokenHash,
+                       @Param("expiresAt") LocalDateTime expiresAt, @Param("createdAt") LocalDateTime createdAt);
 }
@@ -5,10 +5,10 @@ import com.ba.authservice.model.*;
 import com.ba.authservice.repository.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -17,10 +17,10 @@ public class AuthService {
     private final UserRepository userRepository;
     private final RefreshTokenRepository refreshTokenRepository;
     private final JwtService jwtService;
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(12);
-    
-    @Value("${jwt.refresh-token-expiry}")
-    private Long refreshTokenExpiry;
+    private final PasswordHasher passwordHasher;
+    private final LoginAttemptStore loginAttemptStore;
+    private final RefreshTokenIndex refreshTokenIndex;
+    private final CurrentUserCache currentUserCache;
     
     @Value("${security.max-failed-attempts}")
     private Integer maxFailedAttempts;
@@ -28,12 +28,21 @@ public class AuthService {
     @Value("${security.lockout-duration}")
     private Integer lockoutDuration;
     
-    @Transactional
-    public LoginResponse login(LoginRequest request) {
+    // Answer /me from the verified access token instead of the users table
+    @Value("${security.me-cache.from-token:false}")
+    private boolean currentUserFromToken;
+    
+    /**
+     * Checks the password on the hashing pool, so no request thread or DB connection is held
+     * while BCrypt runs. Fails immediately with {@link PasswordHashingOverloadedException}
+     * when the pool's queue is full. Attempt counters and lockouts go to the
+     * {@link LoginAttemptStore} and reach the users table in batches.
+     */
+    public CompletableFuture<LoginResponse> login(LoginRequest request) {
         User user = userRepository.findByUsername(request.getUsername())
                 .orElseThrow(() -> new RuntimeException("Invalid credentials"));
         
-        if (user.isLocked()) {
+        if (user.isLocked() || loginAttemptStore.isLocked(user)) {
             throw new RuntimeException("Account is locked. Please try again later.");
         }
         
@@ -41,57 +50,95 @@ public class AuthService {
             throw new RuntimeException("Account is inactive");
         }
         
-        if (!passwordEncoder.matches(request.getPassword(), user.getPasswordHash())) {
-            user.recordFailedLogin();
-            
-            if (user.getFailedLoginAttempts() >= maxFailedAttempts) {
-                user.lockAccount(lockoutDuration);
-            }
-            
-            userRepository.save(user);
-            throw new RuntimeException("Invalid credentials");
+        return passwordHasher.matches(request.getPassword(), user.getPasswordHash())
+                .thenApply(matched -> {
+                    if (!matched) {
+                        LoginState state = loginAttemptStore.recordFailure(user, maxFailedAttempts, lockoutDuration);
+                        if (state != null && state.isLocked(LocalDateTime.now())) {
+                            currentUserCache.invalidate(user.getId());
+                        }
+                        throw new RuntimeException("Invalid credentials");
+                    }
+                    loginAttemptStore.recordSuccess(user);
+                    return tokenResponse(toDto(user));
+                });
+    }
+    
+    /**
+     * Rotates a refresh token: the presented token is revoked and a new pair is issued.
+     * The token is consumed with one conditional update of its row, so a token rotated or
+     * logged out on any instance is rejected everywhere. The user is re-read so deactivated
+     * or locked accounts cannot keep refreshing. A refresh therefore costs two database
+     * round-trips, three if its token is still waiting for its flush; only replays seen by
+     * this instance are answered from the {@link RefreshTokenIndex} alone.
+     */
+    @Transactional
+    public LoginResponse refresh(String refreshToken) {
+        String digest = RefreshTokenIndex.digest(refreshToken);
+        if (refreshTokenIndex.isRevoked(digest)) {
+            throw new RuntimeException("Invalid refresh token");
         }
         
-        user.recordSuccessfulLogin();
-        userRepository.save(user);
-        
-        String accessToken = jwtService.generateAccessToken(user);
-        String refreshTokenString = jwtService.generateRefreshToken();
-        
-        RefreshToken refreshToken = RefreshToken.builder()
-                .user(user)
-                .token(refreshTokenString)
-                .expiresAt(LocalDateTime.now().plusSeconds(refreshTokenExpiry))
-                .createdAt(LocalDateTime.now())
-                .build();
-        
-        refreshTokenRepository.save(refreshToken);
+        RefreshTokenIndex.PendingToken pending = refreshTokenIndex.pendingInsert(digest);
+        if (pending != null) {
+            refreshTokenRepository.insertIfAbsent(pending.userId(), digest, pending.expiresAt(), pending.createdAt());
+        }
+        Long userId = refreshTokenRepository.consume(digest, LocalDateTime.now())
+                .orElseThrow(() -> new RuntimeException("Invalid refresh token"));
+        refreshTokenIndex.markRevoked(digest);
         
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (!user.getActive()) {
+            throw new RuntimeException("Account is inactive");
+        }
+        if (user.isLocked() || loginAttemptStore.isLocked(user)) {
+            throw new RuntimeException("Account is locked. Please try again later.");
+        }
+        return tokenResponse(toDto(user));
+    }
+    
+    private LoginResponse tokenResponse(UserDto user) {
         return LoginResponse.builder()
-                .accessToken(accessToken)
-                .refreshToken(refreshTokenString)
+                .accessToken(jwtService.generateAccessToken(user))
+                .refreshToken(refreshTokenIndex.issue(user))
                 .tokenType("Bearer")
                 .expiresIn(28800L)
-                .user(UserDto.builder()
-                        .id(user.getId())
-                        .username(user.getUsername())
-                        .email(user.getEmail())
-                        .role(user.getRole())
-                        .customerId(user.getCustomerId())
-                        .branchId(user.getBranchId())
-                        .build())
+                .user(user)
                 .build();
     }
     
     @Transactional
     public void logout(Long userId) {
+        refreshTokenIndex.revokeUser(userId);
+        currentUserCache.invalidate(userId);
         refreshTokenRepository.revokeAllUserTokens(userId);
     }
     
-    public UserDto getCurrentUser(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
+    /**
+     * Resolves the caller for {@code /me}: from the access token's claims when
+     * {@code security.me-cache.from-token} is set and the token is for this user,
+     * otherwise through the {@link CurrentUserCache}. With from-token, a user locked or
+     * deactivated after the token was issued is still answered from its claims until the
+     * token expires; invalidation only reaches the cache. That is why it is off by default.
+     */
+    public UserDto getCurrentUser(Long userId, String accessToken) {
+        if (currentUserFromToken && accessToken != null) {
+            try {
+                UserDto user = jwtService.parseUser(accessToken);
+                if (userId.equals(user.getId())) {
+                    return user;
+                }
+            } catch (RuntimeException e) {
+                // Fall back to the cached lookup
+            }
+        }
+        return currentUserCache.get(userId, id -> toDto(userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("User not found"))));
+    }
+
+    
+    private static UserDto toDto(User user) {
         return UserDto.builder()
                 .id(user.getId())
                 .username(user.getUsername())
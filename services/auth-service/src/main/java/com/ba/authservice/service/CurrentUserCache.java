@@ -0,0 +1,67 @@
+package com.ba.authservice.service;
+
+import com.ba.authservice.dto.UserDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Short-lived read-through cache of {@link UserDto} by user id for {@code /api/auth/me}.
+ * Entries are dropped explicitly when a user logs out, is locked or is deactivated, and
+ * otherwise expire after {@code security.me-cache.ttl}. When full, the least recently used
+ * user is evicted. A lookup that started before an invalidation is not stored after it.
+ */
+@Component
+public class CurrentUserCache {
+
+    private final Map<Long, Entry> entries;
+    // Bumped by every invalidation; users are invalidated rarely, so one counter for all is enough
+    private final AtomicLong generation = new AtomicLong();
+    private final long ttlMillis;
+
+    private record Entry(UserDto user, long expiresAtMillis) {
+    }
+
+    public CurrentUserCache(@Value("${security.me-cache.ttl:30000}") long ttlMillis,
+                            @Value("${security.me-cache.max-size:10000}") int maxSize) {
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public UserDto get(Long userId, Function<Long, UserDto> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(userId);
+        }
+        if (entry != null && now < entry.expiresAtMillis()) {
+            return entry.user();
+        }
+
+        // Loaded outside the lock so a slow lookup does not hold up other users
+        long before = generation.get();
+        UserDto user = loader.apply(userId);
+        synchronized (entries) {
+            if (generation.get() == before) {
+                entries.put(userId, new Entry(user, now + ttlMillis));
+            }
+        }
+        return user;
+    }
+
+    public void invalidate(Long userId) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(userId);
+        }
+    }
+}
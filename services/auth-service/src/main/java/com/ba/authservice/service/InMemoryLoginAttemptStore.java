@@ -0,0 +1,92 @@
+package com.ba.authservice.service;
+
+import com.ba.authservice.model.User;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@ConditionalOnProperty(name = "security.login-state.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryLoginAttemptStore implements LoginAttemptStore {
+
+    private final Map<Long, LoginState> states = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean isLocked(User user) {
+        LoginState state = states.get(user.getId());
+        return state != null && state.isLocked(LocalDateTime.now());
+    }
+
+    @Override
+    public LoginState recordFailure(User user, int maxAttempts, int lockoutSeconds) {
+        LoginState state = states.computeIfAbsent(user.getId(), id -> seed(user));
+        synchronized (state) {
+            state.setFailedLoginAttempts(state.getFailedLoginAttempts() + 1);
+            if (state.getFailedLoginAttempts() >= maxAttempts) {
+                state.setLockedUntil(LocalDateTime.now().plusSeconds(lockoutSeconds));
+            }
+            markDirty(state);
+            return copy(state);
+        }
+    }
+
+    @Override
+    public void recordSuccess(User user) {
+        LoginState state = states.computeIfAbsent(user.getId(), id -> seed(user));
+        synchronized (state) {
+            state.setFailedLoginAttempts(0);
+            state.setLastLoginAt(LocalDateTime.now());
+            markDirty(state);
+        }
+    }
+
+    @Override
+    public List<LoginState> drainDirty() {
+        List<LoginState> drained = new ArrayList<>();
+        for (Long userId : dirty) {
+            dirty.remove(userId);
+            LoginState state = states.get(userId);
+            if (state != null) {
+                synchronized (state) {
+                    drained.add(copy(state));
+                }
+            }
+        }
+        return drained;
+    }
+
+    @Override
+    public void requeue(List<LoginState> states) {
+        states.forEach(state -> dirty.add(state.getUserId()));
+    }
+
+    @Override
+    public void evictClean() {
+        LocalDateTime now = LocalDateTime.now();
+        // Unlocked, clean entries match the users row again and can be re-seeded from it on demand
+        states.entrySet().removeIf(entry -> !dirty.contains(entry.getKey()) && !entry.getValue().isLocked(now));
+    }
+
+    private void markDirty(LoginState state) {
+        dirty.add(state.getUserId());
+        // Re-attach in case evictClean dropped the entry while this update was in progress
+        states.putIfAbsent(state.getUserId(), state);
+    }
+
+    private static LoginState seed(User user) {
+        LocalDateTime lockedUntil = Boolean.TRUE.equals(user.getAccountLocked()) ? user.getLockedUntil() : null;
+        int failed = user.getFailedLoginAttempts() != null ? user.getFailedLoginAttempts() : 0;
+        return new LoginState(user.getId(), failed, lockedUntil, null);
+    }
+
+    private static LoginState copy(LoginState state) {
+        return new LoginState(state.getUserId(), state.getFailedLoginAttempts(), state.getLockedUntil(), state.getLastLoginAt());
+    }
+}
@@ -1,49 +1,110 @@
 package com.ba.authservice.service;
 
+import com.ba.authservice.dto.UserDto;
+import com.ba.authservice.model.Role;
 import com.ba.authservice.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.security.Key;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
+@RequiredArgsConstructor
 public class JwtService {
     
-    @Value("${jwt.secret-key}")
-    private String secretKey;
-    
     @Value("${jwt.access-token-expiry}")
     private Long accessTokenExpiry;
     
     @Value("${jwt.issuer}")
     private String issuer;
     
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secretKey.getBytes());
+    // Key material is loaded once at startup
+    private final SigningKeyProvider signingKeyProvider;
+    
+    private JwtParser parser;
+    
+    @PostConstruct
+    void init() {
+        parser = signingKeyProvider.buildParser();
     }
     
     public String generateAccessToken(User user) {
-        Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + accessTokenExpiry * 1000);
-        
-        return Jwts.builder()
-                .setSubject(String.valueOf(user.getId()))
-                .claim("username", user.getUsername())
-                .claim("email", user.getEmail())
-                .claim("role", user.getRole().name())
-                .claim("customerId", user.getCustomerId())
-                .claim("branchId", user.getBranchId())
-                .setIssuer(issuer)
-                .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+        return generateAccessToken(UserDto.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .role(user.getRole())
+                .customerId(user.getCustomerId())
+                .branchId(user.getBranchId())
+                .build());
+    }
+    
+    /**
+     * Signs an access token from an already loaded user snapshot, so refreshes need no user lookup.
+     */
+    public String generateAccessToken(UserDto user) {
+        return sign(user, System.currentTimeMillis());
+    }
+    
+    /**
+     * Issues access tokens for many users at once, e.g. to seed load tests or provision service
+     * accounts. All tokens share one issue time.
+     */
+    public List<String> generateAccessTokens(List<UserDto> users) {
+        long now = System.currentTimeMillis();
+        List<String> tokens = new ArrayList<>(users.size());
+        for (UserDto user : users) {
+            tokens.add(sign(user, now));
+        }
+        return tokens;
+    }
+    
+    /**
+     * Verifies an access token issued by this service and rebuilds the user from its claims.
+     * Throws {@link io.jsonwebtoken.JwtException} if the token is invalid or expired.
+     */
+    public UserDto parseUser(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        return UserDto.builder()
+                .id(Long.valueOf(claims.getSubject()))
+                .username(claims.get("username", String.class))
+                .email(claims.get("email", String.class))
+                .role(Role.valueOf(claims.get("role", String.class)))
+                .customerId(claims.get("customerId", Long.class))
+                .branchId(claims.get("branchId", Long.class))
+                .build();
+    }
+    
+    private String sign(UserDto user, long now) {
+        return signingKeyProvider.sign(Jwts.builder()
+                        .claims(claimsFor(user))
+                        .subject(String.valueOf(user.getId()))
+                        .issuer(issuer)
+                        .issuedAt(new Date(now))
+                        .expiration(new Date(now + accessTokenExpiry * 1000)))
                 .compact();
     }
     
-    public String generateRefreshToken() {
-        return java.util.UUID.randomUUID().toString();
+    // Null ids are left out, as the builder did for null values
+    private static Map<String, Object> claimsFor(UserDto user) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("username", user.getUsername());
+        claims.put("email", user.getEmail());
+        claims.put("role", user.getRole().name());
+        if (user.getCustomerId() != null) {
+            claims.put("customerId", user.getCustomerId());
+        }
+        if (user.getBranchId() != null) {
+            claims.put("branchId", user.getBranchId());
+        }
+        return claims;
     }
 }
@@ -0,0 +1,37 @@
+package com.ba.authservice.service;
+
+import com.ba.authservice.model.User;
+
+import java.util.List;
+
+/**
+ * Failed-attempt counters and lockouts, consulted before any password is hashed and
+ * written back to the users table in batches by {@link LoginStateFlusher}.
+ */
+public interface LoginAttemptStore {
+
+    boolean isLocked(User user);
+
+    /**
+     * Counts a failed attempt and locks the user for {@code lockoutSeconds} once
+     * {@code maxAttempts} is reached, like {@link User#recordFailedLogin()} and {@link User#lockAccount(int)}.
+     */
+    LoginState recordFailure(User user, int maxAttempts, int lockoutSeconds);
+
+    void recordSuccess(User user);
+
+    /**
+     * Returns the current state of every user changed since the last call and marks them clean.
+     */
+    List<LoginState> drainDirty();
+
+    /**
+     * Marks drained states dirty again after a failed flush so the next cycle retries them.
+     */
+    void requeue(List<LoginState> states);
+
+    /**
+     * Called after a successful flush so entries that are now fully persisted can be dropped.
+     */
+    void evictClean();
+}
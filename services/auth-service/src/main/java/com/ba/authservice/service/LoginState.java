@@ -0,0 +1,25 @@
+package com.ba.authservice.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Login bookkeeping for one user, kept outside the users row between flushes.
+ * Lock semantics mirror {@link com.ba.authservice.model.User#lockAccount(int)}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoginState {
+    private Long userId;
+    private int failedLoginAttempts;
+    private LocalDateTime lockedUntil;
+    private LocalDateTime lastLoginAt;
+
+    public boolean isLocked(LocalDateTime now) {
+        return lockedUntil != null && now.isBefore(lockedUntil);
+    }
+}
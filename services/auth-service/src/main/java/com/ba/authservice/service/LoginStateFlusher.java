@@ -0,0 +1,68 @@
+package com.ba.authservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Writes login bookkeeping from the {@link LoginAttemptStore} back to the users table in
+ * JDBC batches, instead of an UPDATE of the user row on every login attempt.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LoginStateFlusher {
+
+    // Locks are only ever set here; an expired lock is cleared lazily by User.isLocked()
+    private static final String UPDATE_SQL =
+            "UPDATE users SET failed_login_attempts = ?, " +
+            "account_locked = (account_locked OR ?), " +
+            "locked_until = COALESCE(?, locked_until), " +
+            "last_login_at = COALESCE(?, last_login_at), " +
+            "updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = ?";
+
+    private final LoginAttemptStore loginAttemptStore;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${security.login-state.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${security.login-state.flush-interval:5000}")
+    public void flush() {
+        List<LoginState> states = loginAttemptStore.drainDirty();
+        if (states.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, states, batchSize, (ps, state) -> {
+                boolean locked = state.isLocked(now);
+                ps.setInt(1, state.getFailedLoginAttempts());
+                ps.setBoolean(2, locked);
+                ps.setTimestamp(3, locked ? Timestamp.valueOf(state.getLockedUntil()) : null);
+                ps.setTimestamp(4, state.getLastLoginAt() != null ? Timestamp.valueOf(state.getLastLoginAt()) : null);
+                ps.setLong(5, state.getUserId());
+            });
+            loginAttemptStore.evictClean();
+            log.debug("Flushed login state for {} users", states.size());
+        } catch (RuntimeException e) {
+            log.warn("Login state flush failed for {} users, will retry: {}", states.size(), e.getMessage());
+            loginAttemptStore.requeue(states);
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+}
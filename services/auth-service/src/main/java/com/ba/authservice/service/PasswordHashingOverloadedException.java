@@ -0,0 +1,18 @@
+package com.ba.authservice.service;
+
+/**
+ * Thrown when the password hashing queue is full and a login cannot be admitted.
+ */
+public class PasswordHashingOverloadedException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public PasswordHashingOverloadedException(int retryAfterSeconds) {
+        super("Login service is busy. Please try again shortly.");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,132 @@
+package com.ba.authservice.service;
+
+import com.ba.authservice.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares counters and lockouts between auth-service instances through Redis, so an attacker
+ * cannot multiply the attempt limit by spreading guesses across instances. Each instance
+ * still flushes the users it touched itself.
+ */
+@Component
+@ConditionalOnProperty(name = "security.login-state.store", havingValue = "redis")
+public class RedisLoginAttemptStore implements LoginAttemptStore {
+
+    private static final String KEY_PREFIX = "auth:login:";
+    private static final String FAILED = "failed";
+    private static final String LOCKED_UNTIL = "lockedUntil";
+    private static final String LAST_LOGIN_AT = "lastLoginAt";
+
+    private final StringRedisTemplate redisTemplate;
+    private final HashOperations<String, String, String> hashes;
+    private final Duration entryTtl;
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    public RedisLoginAttemptStore(StringRedisTemplate redisTemplate,
+                                  @Value("${security.login-state.redis-ttl:86400}") long entryTtlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.hashes = redisTemplate.opsForHash();
+        this.entryTtl = Duration.ofSeconds(entryTtlSeconds);
+    }
+
+    @Override
+    public boolean isLocked(User user) {
+        String lockedUntil = hashes.get(key(user.getId()), LOCKED_UNTIL);
+        return lockedUntil != null && LocalDateTime.now().isBefore(fromMillis(Long.parseLong(lockedUntil)));
+    }
+
+    @Override
+    public LoginState recordFailure(User user, int maxAttempts, int lockoutSeconds) {
+        String key = seed(user);
+        long failed = hashes.increment(key, FAILED, 1);
+        if (failed >= maxAttempts) {
+            hashes.put(key, LOCKED_UNTIL, String.valueOf(toMillis(LocalDateTime.now().plusSeconds(lockoutSeconds))));
+        }
+        redisTemplate.expire(key, entryTtl);
+        dirty.add(user.getId());
+        return read(user.getId());
+    }
+
+    @Override
+    public void recordSuccess(User user) {
+        String key = seed(user);
+        hashes.putAll(key, Map.of(
+                FAILED, "0",
+                LAST_LOGIN_AT, String.valueOf(toMillis(LocalDateTime.now()))));
+        redisTemplate.expire(key, entryTtl);
+        dirty.add(user.getId());
+    }
+
+    @Override
+    public List<LoginState> drainDirty() {
+        List<LoginState> drained = new ArrayList<>();
+        for (Long userId : dirty) {
+            dirty.remove(userId);
+            LoginState state = read(userId);
+            if (state != null) {
+                drained.add(state);
+            }
+        }
+        return drained;
+    }
+
+    @Override
+    public void requeue(List<LoginState> states) {
+        states.forEach(state -> dirty.add(state.getUserId()));
+    }
+
+    @Override
+    public void evictClean() {
+        // Entries expire in Redis on their own
+    }
+
+    private String seed(User user) {
+        String key = key(user.getId());
+        int failed = user.getFailedLoginAttempts() != null ? user.getFailedLoginAttempts() : 0;
+        hashes.putIfAbsent(key, FAILED, String.valueOf(failed));
+        if (Boolean.TRUE.equals(user.getAccountLocked()) && user.getLockedUntil() != null) {
+            hashes.putIfAbsent(key, LOCKED_UNTIL, String.valueOf(toMillis(user.getLockedUntil())));
+        }
+        return key;
+    }
+
+    private LoginState read(Long userId) {
+        Map<String, String> fields = hashes.entries(key(userId));
+        if (fields.isEmpty()) {
+            return null;
+        }
+        String lockedUntil = fields.get(LOCKED_UNTIL);
+        String lastLoginAt = fields.get(LAST_LOGIN_AT);
+        return new LoginState(
+                userId,
+                Integer.parseInt(fields.getOrDefault(FAILED, "0")),
+                lockedUntil != null ? fromMillis(Long.parseLong(lockedUntil)) : null,
+                lastLoginAt != null ? fromMillis(Long.parseLong(lastLoginAt)) : null);
+    }
+
+    private static String key(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
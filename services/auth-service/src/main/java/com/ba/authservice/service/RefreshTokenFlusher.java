@@ -0,0 +1,61 @@
+package com.ba.authservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+
+/**
+ * Persists refresh tokens issued through the {@link RefreshTokenIndex} in JDBC batches, off
+ * the login path. Revocations are written directly by refresh and logout.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RefreshTokenFlusher {
+
+    // A token refreshed before its flush was already inserted by the refresh
+    private static final String INSERT_SQL =
+            "INSERT INTO refresh_tokens (user_id, token_hash, expires_at, revoked, created_at) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (token_hash) DO NOTHING";
+
+    private final RefreshTokenIndex refreshTokenIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${security.refresh-tokens.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${security.refresh-tokens.flush-interval:1000}")
+    public void flush() {
+        try {
+            // One transaction, so a failed flush can be retried whole
+            refreshTokenIndex.flush(inserts -> transactionTemplate.executeWithoutResult(status -> {
+                // A token revoked by logout before its flush is inserted as revoked
+                jdbcTemplate.batchUpdate(INSERT_SQL, inserts, batchSize, (ps, token) -> {
+                    ps.setLong(1, token.userId());
+                    ps.setString(2, token.digest());
+                    ps.setTimestamp(3, Timestamp.valueOf(token.expiresAt()));
+                    ps.setBoolean(4, token.revoked());
+                    ps.setTimestamp(5, Timestamp.valueOf(token.createdAt()));
+                });
+                log.debug("Persisted {} refresh tokens", inserts.size());
+            }));
+        } catch (RuntimeException e) {
+            log.warn("Refresh token flush failed, will retry: {}", e.getMessage());
+        }
+
+        refreshTokenIndex.evictExpired();
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,156 @@
+package com.ba.authservice.service;
+
+import com.ba.authservice.dto.UserDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Issues refresh tokens without a database write on the login path: new tokens are kept here,
+ * keyed by their SHA-256 digest, until {@link RefreshTokenFlusher} inserts them in batches, and
+ * are dropped once inserted. The refresh_tokens table stays the shared record of which tokens
+ * are revoked. Besides the pending inserts, this index only keeps a bounded set of tombstones
+ * for tokens consumed or revoked through this instance, so a replay is rejected without a query;
+ * a tombstone evicted early only costs that query.
+ */
+@Component
+public class RefreshTokenIndex {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    // Issued but not inserted yet, by digest
+    private final Map<String, PendingToken> pendingInserts = new ConcurrentHashMap<>();
+    // Digest to expiry; every tombstone lives for the token lifetime, so insertion order is expiry order
+    private final LinkedHashMap<String, Long> tombstones;
+    // Held by a flush from drain to commit and by revokeUser: a user's tokens are then either
+    // still pending (and inserted revoked) or committed before the caller's revoking UPDATE
+    private final Object flushLock = new Object();
+    private final long refreshTokenExpiry;
+
+    record PendingToken(String digest, long userId, LocalDateTime expiresAt, LocalDateTime createdAt, boolean revoked) {
+
+        PendingToken revoke() {
+            return new PendingToken(digest, userId, expiresAt, createdAt, true);
+        }
+    }
+
+    public RefreshTokenIndex(@Value("${jwt.refresh-token-expiry}") long refreshTokenExpiry,
+                             @Value("${security.refresh-tokens.tombstones.max-size:100000}") int maxTombstones) {
+        this.refreshTokenExpiry = refreshTokenExpiry;
+        this.tombstones = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxTombstones;
+            }
+        };
+    }
+
+    /**
+     * Creates a refresh token for the user. It is persisted on the next flush, or earlier if it
+     * is presented for a refresh before that.
+     */
+    public String issue(UserDto user) {
+        byte[] random = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(random);
+        String token = ENCODER.encodeToString(random);
+        String digest = digest(token);
+
+        LocalDateTime now = LocalDateTime.now();
+        pendingInserts.put(digest, new PendingToken(digest, user.getId(), now.plusSeconds(refreshTokenExpiry), now, false));
+        return token;
+    }
+
+    /**
+     * The token if it was issued here and has not been inserted yet.
+     */
+    public PendingToken pendingInsert(String digest) {
+        return pendingInserts.get(digest);
+    }
+
+    /**
+     * Records that a token was consumed in the database, so a replay on this instance is
+     * rejected without a query.
+     */
+    public void markRevoked(String digest) {
+        long expiresAt = System.currentTimeMillis() + refreshTokenExpiry * 1000;
+        synchronized (tombstones) {
+            tombstones.put(digest, expiresAt);
+        }
+    }
+
+    /**
+     * Revokes the user's tokens that are not inserted yet; the caller revokes the persisted
+     * rows. Only the pending inserts are scanned, a flush interval's worth of logins.
+     */
+    public void revokeUser(Long userId) {
+        synchronized (flushLock) {
+            pendingInserts.replaceAll((digest, token) -> token.userId() == userId ? token.revoke() : token);
+        }
+    }
+
+    public boolean isRevoked(String digest) {
+        PendingToken pending = pendingInserts.get(digest);
+        if (pending != null && pending.revoked()) {
+            return true;
+        }
+        synchronized (tombstones) {
+            return tombstones.containsKey(digest);
+        }
+    }
+
+    /**
+     * Hands the pending inserts to the writer and forgets them once it returns. If the writer
+     * throws they stay pending for the next flush.
+     */
+    void flush(Consumer<List<PendingToken>> writer) {
+        synchronized (flushLock) {
+            List<PendingToken> drained = new ArrayList<>(pendingInserts.values());
+            if (drained.isEmpty()) {
+                return;
+            }
+            writer.accept(drained);
+            drained.forEach(token -> pendingInserts.remove(token.digest(), token));
+        }
+    }
+
+    void evictExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (tombstones) {
+            Iterator<Long> expiries = tombstones.values().iterator();
+            while (expiries.hasNext() && expiries.next() <= now) {
+                expiries.remove();
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (tombstones) {
+            return pendingInserts.size() + tombstones.size();
+        }
+    }
+
+    public static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return ENCODER.encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.ba.authservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes expired and revoked refresh tokens. Rows are removed in small batches walked in
+ * primary key order, with a pause between batches, so each delete holds its locks briefly
+ * and the sweep never competes with logins for long.
+ */
+@Slf4j
+@Component
+public class RefreshTokenSweeper {
+
+    private static final String DELETE_BATCH_SQL =
+            "DELETE FROM refresh_tokens WHERE id IN (" +
+            "SELECT id FROM refresh_tokens WHERE id > ? AND (revoked OR expires_at < ?) " +
+            "ORDER BY id LIMIT ?) " +
+            "RETURNING id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final Counter purged;
+    private final Timer sweepTime;
+
+    public RefreshTokenSweeper(JdbcTemplate jdbcTemplate,
+                               @Value("${security.refresh-tokens.sweep.batch-size:1000}") int batchSize,
+                               @Value("${security.refresh-tokens.sweep.pause:50}") long pauseMillis,
+                               MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+        this.purged = Counter.builder("auth.refresh_tokens.purged")
+                .description("Expired or revoked refresh tokens deleted by the sweeper")
+                .register(meterRegistry);
+        this.sweepTime = Timer.builder("auth.refresh_tokens.sweep")
+                .description("Duration of a full refresh token sweep")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${security.refresh-tokens.sweep.interval:600000}",
+               initialDelayString = "${security.refresh-tokens.sweep.interval:600000}")
+    public void sweep() {
+        long start = System.nanoTime();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        long lastId = 0;
+        long total = 0;
+
+        try {
+            while (true) {
+                List<Long> deleted = jdbcTemplate.queryForList(DELETE_BATCH_SQL, Long.class, lastId, now, batchSize);
+                if (deleted.isEmpty()) {
+                    break;
+                }
+                total += deleted.size();
+                purged.increment(deleted.size());
+                lastId = deleted.stream().mapToLong(Long::longValue).max().getAsLong();
+                if (deleted.size() < batchSize) {
+                    break;
+                }
+                Thread.sleep(pauseMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Refresh token sweep stopped after {} rows: {}", total, e.getMessage());
+        }
+
+        long elapsed = System.nanoTime() - start;
+        sweepTime.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Refresh token sweep purged {} rows in {} ms", total, elapsed / 1_000_000);
+    }
+}
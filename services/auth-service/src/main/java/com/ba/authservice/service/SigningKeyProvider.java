@@ -0,0 +1,127 @@
+package com.ba.authservice.service;
+
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import javax.crypto.SecretKey;
+
+/**
+ * Signing material for access tokens. HS256 uses the shared {@code jwt.secret-key}; EdDSA
+ * (Ed25519) and ES256 sign with a private key whose public half is published as a JWK set,
+ * so verifiers need no shared secret. Tokens carry the key id in the {@code kid} header.
+ */
+@Slf4j
+@Component
+public class SigningKeyProvider {
+
+    @Value("${jwt.secret-key}")
+    private String secretKey;
+
+    @Value("${jwt.signing.algorithm:HS256}")
+    private String algorithm;
+
+    @Value("${jwt.signing.key-id:}")
+    private String configuredKeyId;
+
+    // Base64 PKCS#8 / X.509 DER; required for EdDSA and ES256
+    @Value("${jwt.signing.private-key:}")
+    private String privateKeyBase64;
+
+    @Value("${jwt.signing.public-key:}")
+    private String publicKeyBase64;
+
+    private SecretKey hmacKey;
+    private PrivateKey privateKey;
+    private PublicKey publicKey;
+    private SignatureAlgorithm signatureAlgorithm;
+
+    @Getter
+    private String keyId;
+
+    private Map<String, Object> jwks = Map.of("keys", List.of());
+
+    @PostConstruct
+    void init() throws GeneralSecurityException {
+        switch (algorithm.toUpperCase()) {
+            case "HS256" -> {
+                hmacKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+                keyId = configuredKeyId.isBlank() ? null : configuredKeyId;
+            }
+            case "EDDSA" -> {
+                initKeyPair("Ed25519");
+                signatureAlgorithm = Jwts.SIG.EdDSA;
+            }
+            case "ES256" -> {
+                initKeyPair("EC");
+                signatureAlgorithm = Jwts.SIG.ES256;
+            }
+            default -> throw new IllegalStateException("Unsupported jwt.signing.algorithm: " + algorithm);
+        }
+        log.info("Signing access tokens with {} (kid={})", algorithm, keyId);
+    }
+
+    private void initKeyPair(String keyAlgorithm) throws GeneralSecurityException {
+        // Every instance must sign with the same key, or tokens issued by one fail on the others
+        // and all of them die with a restart; refuse to start rather than generate one
+        if (privateKeyBase64.isBlank() || publicKeyBase64.isBlank()) {
+            throw new IllegalStateException("jwt.signing.algorithm=" + algorithm
+                    + " needs jwt.signing.private-key and jwt.signing.public-key");
+        }
+        KeyFactory factory = KeyFactory.getInstance(keyAlgorithm);
+        privateKey = factory.generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKeyBase64.trim())));
+        publicKey = factory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(publicKeyBase64.trim())));
+
+        Jwk<?> jwk = configuredKeyId.isBlank()
+                ? Jwks.builder().key(publicKey).idFromThumbprint().build()
+                : Jwks.builder().key(publicKey).id(configuredKeyId).build();
+        keyId = jwk.getId();
+        jwks = Map.of("keys", List.of(jwk));
+    }
+
+    /**
+     * Sets the kid header and signs with the configured key and algorithm.
+     */
+    public JwtBuilder sign(JwtBuilder builder) {
+        if (keyId != null) {
+            builder.header().keyId(keyId).and();
+        }
+        return hmacKey != null
+                ? builder.signWith(hmacKey, Jwts.SIG.HS256)
+                : builder.signWith(privateKey, signatureAlgorithm);
+    }
+
+    /**
+     * Parser that verifies tokens signed by this service.
+     */
+    public JwtParser buildParser() {
+        return hmacKey != null
+                ? Jwts.parser().verifyWith(hmacKey).build()
+                : Jwts.parser().verifyWith(publicKey).build();
+    }
+
+    /**
+     * Public keys as a JWK set; empty when signing with the shared HMAC secret.
+     */
+    public Map<String, Object> getJwks() {
+        return jwks;
+    }
+}
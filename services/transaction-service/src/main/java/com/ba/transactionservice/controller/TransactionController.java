@@ -1,18 +1,38 @@
 package com.ba.transactionservice.controller;
 import com.ba.transactionservice.dto.*;
 import com.ba.transactionservice.model.Transaction;
+import com.ba.transactionservice.service.BatchTransferService;
+import com.ba.transactionservice.service.IdempotencyConflictException;
+import com.ba.transactionservice.service.IdempotencyMismatchException;
+import com.ba.transactionservice.service.IdempotencyService;
 import com.ba.transactionservice.service.TransactionService;
+import com.ba.transactionservice.service.TransferFailedException;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequiredArgsConstructor
 public class TransactionController {
+    // Clients retrying a write send the same value to get the original result back
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    // Set by the gateway; keys are scoped per caller
+    private static final String USER_ID = "X-User-Id";
+
     private final TransactionService transactionService;
+    private final BatchTransferService batchTransferService;
+    private final IdempotencyService idempotencyService;
 
     // Customer portal - get my transactions for an account
     @GetMapping("/transactions/my/{accountId}")
@@ -20,10 +40,31 @@ public class TransactionController {
         return ResponseEntity.ok(ApiResponse.ok(transactionService.getByAccountId(accountId)));
     }
 
+    // Customer portal - paged history, e.g. ?from=2026-01-01&to=2026-01-31&size=50&cursor=...
+    @GetMapping("/transactions/my/{accountId}/history")
+    public ResponseEntity<ApiResponse<HistoryPage>> getMyHistory(
+            @PathVariable Long accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(ApiResponse.ok(transactionService.getHistory(accountId, from, to, cursor, size)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     // Transfer - customer portal
     @PostMapping("/transfers/external")
-    public ResponseEntity<ApiResponse<Transaction>> transfer(@RequestBody TransferRequest req) {
-        return ResponseEntity.ok(ApiResponse.ok(transactionService.transfer(req)));
+    public CompletableFuture<ResponseEntity<ApiResponse<Transaction>>> transfer(
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestHeader(value = USER_ID, required = false) String userId,
+            @RequestBody TransferRequest req) {
+        return idempotencyService.execute("transfer", userId, idempotencyKey, fingerprint(req),
+                () -> transactionService.transfer(req))
+            .thenApply(txn -> ResponseEntity.status(transferStatus(txn)).body(ApiResponse.ok(txn)))
+            .exceptionally(e -> ResponseEntity.status(errorStatus(e)).body(ApiResponse.error(cause(e).getMessage())));
     }
 
     // Branch dashboard endpoints
@@ -43,24 +84,110 @@ public class TransactionController {
     }
 
     @PostMapping("/transactions/deposit")
-    public ResponseEntity<Transaction> deposit(@RequestBody Map<String, Object> body) {
+    public CompletableFuture<ResponseEntity<Transaction>> deposit(
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestHeader(value = USER_ID, required = false) String userId,
+            @RequestBody Map<String, Object> body) {
         Long accountId = Long.parseLong(body.get("accountId").toString());
         BigDecimal amount = new BigDecimal(body.get("amount").toString());
         String desc = body.containsKey("description") ? body.get("description").toString() : "Deposit";
-        return ResponseEntity.ok(transactionService.deposit(accountId, amount, desc));
+        return idempotencyService.execute("deposit", userId, idempotencyKey,
+                IdempotencyService.fingerprint(accountId, amount, desc),
+                () -> CompletableFuture.completedFuture(transactionService.deposit(accountId, amount, desc)))
+            .thenApply(ResponseEntity::ok)
+            .exceptionally(TransactionController::conflictOrRethrow);
     }
 
     @PostMapping("/transactions/withdrawal")
-    public ResponseEntity<Transaction> withdrawal(@RequestBody Map<String, Object> body) {
+    public CompletableFuture<ResponseEntity<Transaction>> withdrawal(
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestHeader(value = USER_ID, required = false) String userId,
+            @RequestBody Map<String, Object> body) {
         Long accountId = Long.parseLong(body.get("accountId").toString());
         BigDecimal amount = new BigDecimal(body.get("amount").toString());
         String desc = body.containsKey("description") ? body.get("description").toString() : "Withdrawal";
-        return ResponseEntity.ok(transactionService.withdrawal(accountId, amount, desc));
+        return idempotencyService.execute("withdrawal", userId, idempotencyKey,
+                IdempotencyService.fingerprint(accountId, amount, desc),
+                () -> CompletableFuture.completedFuture(transactionService.withdrawal(accountId, amount, desc)))
+            .thenApply(ResponseEntity::ok)
+            .exceptionally(TransactionController::conflictOrRethrow);
     }
 
     @PostMapping("/transactions/transfer")
-    public ResponseEntity<Transaction> branchTransfer(@RequestBody TransferRequest req) {
-        return ResponseEntity.ok(transactionService.transfer(req));
+    public CompletableFuture<ResponseEntity<Transaction>> branchTransfer(
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestHeader(value = USER_ID, required = false) String userId,
+            @RequestBody TransferRequest req) {
+        return idempotencyService.execute("transfer", userId, idempotencyKey, fingerprint(req),
+                () -> transactionService.transfer(req))
+            .thenApply(txn -> ResponseEntity.status(transferStatus(txn)).body(txn))
+            .exceptionally(e -> cause(e) instanceof TransferFailedException failed
+                ? ResponseEntity.badRequest().body(failed.getTransaction())
+                : ResponseEntity.status(errorStatus(e)).build());
+    }
+
+    // Bulk transfers (payroll etc.) - body is a JSON array of transfer requests. With an
+    // Idempotency-Key, a retried post only stores the items the earlier attempt did not
+    @PostMapping(value = "/transactions/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<BatchResult>> batch(
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestHeader(value = USER_ID, required = false) String userId,
+            HttpServletRequest request) throws IOException {
+        try {
+            return ResponseEntity.accepted().body(ApiResponse.ok(
+                batchTransferService.postJson(request.getInputStream(), userId, idempotencyKey)));
+        } catch (IdempotencyConflictException e) {
+            return ResponseEntity.status(409).build();
+        }
+    }
+
+    @PostMapping(value = "/transactions/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<BatchResult>> batchCsv(
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestHeader(value = USER_ID, required = false) String userId,
+            @RequestParam("file") MultipartFile file) throws IOException {
+        try {
+            return ResponseEntity.accepted().body(ApiResponse.ok(
+                batchTransferService.postCsv(file.getInputStream(), userId, idempotencyKey)));
+        } catch (IdempotencyConflictException e) {
+            return ResponseEntity.status(409).build();
+        }
+    }
+
+    @GetMapping("/transactions/batch/{batchId}")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> batchStatus(@PathVariable String batchId) {
+        return ResponseEntity.ok(ApiResponse.ok(batchTransferService.status(batchId)));
+    }
+
+    // 202 while a transfer's outcome is still being confirmed with account-service
+    private static int transferStatus(Transaction txn) {
+        return txn.getTransactionStatus() == Transaction.TransactionStatus.PENDING ? 202 : 200;
+    }
+
+    private static String fingerprint(TransferRequest req) {
+        return IdempotencyService.fingerprint(
+            req.getFromAccountId(), req.getToAccountNumber(), req.getAmount(), req.getDescription());
+    }
+
+    // 409 while the key is still running elsewhere, 422 when it was used for a different request
+    private static int errorStatus(Throwable e) {
+        Throwable cause = cause(e);
+        if (cause instanceof IdempotencyConflictException) {
+            return 409;
+        }
+        return cause instanceof IdempotencyMismatchException ? 422 : 400;
+    }
+
+    private static Throwable cause(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    // Other errors keep their previous handling
+    private static <T> ResponseEntity<T> conflictOrRethrow(Throwable e) {
+        if (cause(e) instanceof IdempotencyConflictException || cause(e) instanceof IdempotencyMismatchException) {
+            return ResponseEntity.status(errorStatus(e)).build();
+        }
+        throw e instanceof CompletionException completion ? completion : new CompletionException(e);
     }
 
     @GetMapping("/transactions/today")
@@ -0,0 +1,10 @@
+package com.ba.transactionservice.dto;
+import lombok.*;
+@Data @Builder @NoArgsConstructor @AllArgsConstructor
+public class BatchItemResult {
+    private int index;
+    // ACCEPTED (queued for execution) or REJECTED (failed validation, nothing stored)
+    private String status;
+    private String transactionId;
+    private String error;
+}
@@ -0,0 +1,12 @@
+package com.ba.transactionservice.dto;
+import lombok.*;
+import java.util.List;
+@Data @Builder @NoArgsConstructor @AllArgsConstructor
+public class BatchResult {
+    private String batchId;
+    private int accepted;
+    private int rejected;
+    // Set when the input could not be read to the end; items before it are still processed
+    private String message;
+    private List<BatchItemResult> items;
+}
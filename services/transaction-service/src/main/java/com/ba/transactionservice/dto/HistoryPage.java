@@ -0,0 +1,10 @@
+package com.ba.transactionservice.dto;
+import com.ba.transactionservice.model.Transaction;
+import lombok.*;
+import java.util.List;
+@Data @Builder @NoArgsConstructor @AllArgsConstructor
+public class HistoryPage {
+    private List<Transaction> items;
+    // Pass back as ?cursor= for the next (older) page; null on the last page
+    private String nextCursor;
+}
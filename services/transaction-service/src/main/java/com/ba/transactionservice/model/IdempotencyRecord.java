@@ -0,0 +1,31 @@
+package com.ba.transactionservice.model;
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * One Idempotency-Key seen by the write endpoints. Rows are claimed and completed with plain
+ * SQL by IdempotencyService; the entity only defines the table.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expiresAt"))
+@Data @NoArgsConstructor @AllArgsConstructor
+public class IdempotencyRecord {
+    // Operation, caller (X-User-Id) and client key, e.g. "deposit:42:6f1c..."
+    @Id
+    @Column(length = 200)
+    private String idemKey;
+
+    // Row id of the transaction the first request produced; null while it is still running
+    private Long transactionRowId;
+
+    // Failure message of a transfer that was stored as FAILED
+    private String error;
+
+    // SHA-256 of the request content; the key may not be reused for a different request
+    @Column(length = 64, nullable = false)
+    private String requestHash;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -3,13 +3,25 @@ import jakarta.persistence.*;
 import lombok.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+    @Index(name = "idx_transactions_batch_id", columnList = "batchId"),
+    @Index(name = "idx_transactions_status_created", columnList = "transactionStatus, createdAt"),
+    // Account history is read newest first per side of the transfer; see TransactionRepository.findHistory
+    @Index(name = "idx_transactions_from_created", columnList = "fromAccountId, createdAt, id"),
+    @Index(name = "idx_transactions_to_created", columnList = "toAccountId, createdAt, id")
+}, uniqueConstraints = {
+    // One row per item of a batch, so a retried post cannot store an item twice
+    @UniqueConstraint(name = "uk_transactions_batch_item", columnNames = {"batchId", "batchIndex"})
+})
 @Data @Builder @NoArgsConstructor @AllArgsConstructor
 public class Transaction {
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts; one nextval per 50 rows
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -35,6 +47,10 @@ public class Transaction {
     private Long toAccountId;
     private String toAccountNumber;
 
+    // Set for rows posted through POST /transactions/batch, with the item's position in the batch
+    private String batchId;
+    private Integer batchIndex;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -43,7 +59,9 @@ public class Transaction {
         createdAt = LocalDateTime.now();
         if (transactionStatus == null) transactionStatus = TransactionStatus.COMPLETED;
         if (currency == null) currency = "NPR";
-        if (transactionId == null) transactionId = "TXN" + System.currentTimeMillis() + (int)(Math.random() * 10000);
+        // 63 random bits: rows inserted in one batch share the millisecond
+        if (transactionId == null) transactionId = "TXN" + System.currentTimeMillis()
+            + Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36).toUpperCase();
     }
 
     public enum TransactionType { DEPOSIT, WITHDRAWAL, TRANSFER }
@@ -7,9 +7,52 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
-    List<Transaction> findByFromAccountIdOrToAccountIdOrderByCreatedAtDesc(Long fromId, Long toId);
+    /**
+     * Newest-first history of an account, starting strictly below the (createdAt, id) cursor.
+     * Each branch is a range scan on its own (account, created_at, id) index; UNION also drops
+     * the duplicate a transfer to the same account would produce.
+     */
+    @Query(value = """
+        SELECT * FROM (
+            (SELECT * FROM transactions
+             WHERE from_account_id = :accountId AND created_at >= :from AND created_at < :to
+               AND (created_at, id) < (:cursorAt, :cursorId)
+             ORDER BY created_at DESC, id DESC LIMIT :limit)
+            UNION
+            (SELECT * FROM transactions
+             WHERE to_account_id = :accountId AND created_at >= :from AND created_at < :to
+               AND (created_at, id) < (:cursorAt, :cursorId)
+             ORDER BY created_at DESC, id DESC LIMIT :limit)
+        ) t
+        ORDER BY created_at DESC, id DESC LIMIT :limit
+        """, nativeQuery = true)
+    List<Transaction> findHistory(@Param("accountId") Long accountId,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to,
+                                  @Param("cursorAt") LocalDateTime cursorAt,
+                                  @Param("cursorId") Long cursorId,
+                                  @Param("limit") int limit);
+    @Query(value = """
+        SELECT * FROM transactions WHERE from_account_id = :accountId
+        UNION
+        SELECT * FROM transactions WHERE to_account_id = :accountId
+        ORDER BY created_at DESC
+        """, nativeQuery = true)
+    List<Transaction> findByAccountId(@Param("accountId") Long accountId);
     @Query("SELECT t FROM Transaction t WHERE t.toAccountNumber = :accountNumber ORDER BY t.createdAt DESC")
     List<Transaction> findByAccountNumber(@Param("accountNumber") String accountNumber);
     @Query("SELECT t FROM Transaction t WHERE t.createdAt >= :start ORDER BY t.createdAt DESC")
     List<Transaction> findToday(@Param("start") LocalDateTime start);
+    // Transfers whose outcome was never recorded, oldest first
+    @Query(value = """
+        SELECT * FROM transactions
+        WHERE transaction_status = 'PENDING' AND transaction_type = 'TRANSFER' AND created_at < :before
+        ORDER BY id LIMIT :limit
+        """, nativeQuery = true)
+    List<Transaction> findPendingTransfers(@Param("before") LocalDateTime before, @Param("limit") int limit);
+    // (batchIndex, transactionId) of the items already stored for the batch
+    @Query("SELECT t.batchIndex, t.transactionId FROM Transaction t WHERE t.batchId = :batchId AND t.batchIndex IS NOT NULL")
+    List<Object[]> findBatchItems(@Param("batchId") String batchId);
+    @Query("SELECT t.transactionStatus, COUNT(t) FROM Transaction t WHERE t.batchId = :batchId GROUP BY t.transactionStatus")
+    List<Object[]> countByBatchIdGroupByStatus(@Param("batchId") String batchId);
 }
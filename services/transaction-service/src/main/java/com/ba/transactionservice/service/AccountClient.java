@@ -0,0 +1,113 @@
+package com.ba.transactionservice.service;
+import com.ba.transactionservice.dto.ApiResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.ClientHttpRequestFactories;
+import org.springframework.boot.web.client.ClientHttpRequestFactorySettings;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Moves money through account-service's atomic debit/credit endpoints. Every change carries an
+ * operation key, so repeating it after a lost response never applies it twice.
+ */
+@Component
+public class AccountClient {
+    private final RestClient restClient;
+
+    public AccountClient(RestClient.Builder builder,
+                         @Value("${transfers.account-service-uri:http://account-service:8080}") String accountServiceUri,
+                         @Value("${transfers.account-service.connect-timeout:PT2S}") Duration connectTimeout,
+                         @Value("${transfers.account-service.read-timeout:PT5S}") Duration readTimeout) {
+        this.restClient = builder
+            .baseUrl(accountServiceUri)
+            .requestFactory(ClientHttpRequestFactories.get(ClientHttpRequestFactorySettings.DEFAULTS
+                .withConnectTimeout(connectTimeout)
+                .withReadTimeout(readTimeout)))
+            .build();
+    }
+
+    /**
+     * Id of the account with this number. A 4xx means there is no such account; a 5xx, timeout or
+     * I/O error throws {@link OutcomeUnknownException} so the transfer is retried later instead of failed.
+     */
+    public Long resolveAccountId(String accountNumber) {
+        try {
+            Map<?, ?> metadata = restClient.get()
+                .uri("/accounts/number/{accountNumber}/metadata", accountNumber)
+                .retrieve()
+                .body(Map.class);
+            return Long.valueOf(metadata.get("id").toString());
+        } catch (RestClientResponseException e) {
+            if (!e.getStatusCode().is4xxClientError()) {
+                throw new OutcomeUnknownException("lookup of account " + accountNumber, e);
+            }
+            throw new RuntimeException("Account not found: " + accountNumber);
+        } catch (RestClientException e) {
+            throw new OutcomeUnknownException("lookup of account " + accountNumber, e);
+        }
+    }
+
+    public void debit(Long accountId, BigDecimal amount, String operationKey) {
+        post("/accounts/{id}/debit", accountId, amount, operationKey);
+    }
+
+    public void credit(Long accountId, BigDecimal amount, String operationKey) {
+        post("/accounts/{id}/credit", accountId, amount, operationKey);
+    }
+
+    /**
+     * Whether account-service applied the change with this key. Throws
+     * {@link OutcomeUnknownException} if that cannot be found out now.
+     */
+    public boolean isApplied(String operationKey) {
+        try {
+            restClient.get()
+                .uri("/accounts/operations/{key}", operationKey)
+                .retrieve()
+                .toBodilessEntity();
+            return true;
+        } catch (HttpClientErrorException.NotFound e) {
+            return false;
+        } catch (RestClientException e) {
+            throw new OutcomeUnknownException(operationKey, e);
+        }
+    }
+
+    // A 4xx answer is a definite rejection; timeouts, I/O errors and 5xx may have been applied
+    private void post(String uri, Long accountId, BigDecimal amount, String operationKey) {
+        try {
+            restClient.post()
+                .uri(uri, accountId)
+                .header("Idempotency-Key", operationKey)
+                .body(Map.of("amount", amount))
+                .retrieve()
+                .toBodilessEntity();
+        } catch (RestClientResponseException e) {
+            if (!e.getStatusCode().is4xxClientError()) {
+                throw new OutcomeUnknownException(operationKey, e);
+            }
+            ApiResponse<?> error = e.getResponseBodyAs(ApiResponse.class);
+            String message = error != null && error.getMessage() != null
+                ? error.getMessage()
+                : "Account service rejected the request: " + e.getStatusCode();
+            throw new RuntimeException(message);
+        } catch (RestClientException e) {
+            throw new OutcomeUnknownException(operationKey, e);
+        }
+    }
+
+    /**
+     * The request may or may not have been applied; the transfer stays PENDING for reconciliation.
+     */
+    public static class OutcomeUnknownException extends RuntimeException {
+        public OutcomeUnknownException(String operationKey, Throwable cause) {
+            super("Outcome of " + operationKey + " is unknown: " + cause.getMessage(), cause);
+        }
+    }
+}
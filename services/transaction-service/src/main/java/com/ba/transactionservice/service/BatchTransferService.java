@@ -0,0 +1,278 @@
+package com.ba.transactionservice.service;
+import com.ba.transactionservice.dto.BatchItemResult;
+import com.ba.transactionservice.dto.BatchResult;
+import com.ba.transactionservice.dto.TransferRequest;
+import com.ba.transactionservice.model.Transaction;
+import com.ba.transactionservice.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Bulk postings such as payroll. Items are validated as they are read and stored as PENDING
+ * rows in chunks, each chunk one transaction of batched inserts. Stored chunks are handed to
+ * the {@link TransferEngine} in the background, so the caller gets the batch id and per-item
+ * status without waiting for the money to move. Rows still queued when the instance stops stay
+ * PENDING and are picked up again by {@link PendingTransferReconciler}, at startup and then
+ * periodically; until then they are held so this instance does not queue them twice.
+ *
+ * With an Idempotency-Key the batch id is derived from the caller and key, and every row carries
+ * its item index under a unique (batchId, batchIndex) constraint. A retried post, e.g. after a
+ * timeout or a failure halfway through, reports the items already stored and stores only the
+ * rest. Stored items are matched by position only; their contents are not compared.
+ */
+@Slf4j
+@Service
+public class BatchTransferService {
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferEngine transferEngine;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int maxItems;
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "batch-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BatchTransferService(TransactionRepository transactionRepository,
+                                TransactionTemplate transactionTemplate,
+                                TransferEngine transferEngine,
+                                ObjectMapper objectMapper,
+                                @Value("${transfers.batch.chunk-size:500}") int chunkSize,
+                                @Value("${transfers.batch.max-items:100000}") int maxItems) {
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.transferEngine = transferEngine;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * A JSON array of transfer requests, read one element at a time.
+     */
+    public BatchResult postJson(InputStream body, String caller, String idempotencyKey) throws IOException {
+        return post(objectMapper.readerFor(TransferRequest.class).readValues(body), caller, idempotencyKey);
+    }
+
+    /**
+     * CSV lines of fromAccountId,toAccountNumber,amount[,description]; a header line is skipped.
+     */
+    public BatchResult postCsv(InputStream body, String caller, String idempotencyKey) {
+        return post(new CsvRequests(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))),
+            caller, idempotencyKey);
+    }
+
+    public BatchResult post(Iterator<TransferRequest> requests, String caller, String idempotencyKey) {
+        String batchId = batchId(caller, idempotencyKey);
+        Map<Integer, String> stored = idempotencyKey != null ? storedItems(batchId) : Map.of();
+        List<BatchItemResult> items = new ArrayList<>();
+        List<Transaction> chunk = new ArrayList<>(chunkSize);
+        List<BatchItemResult> chunkResults = new ArrayList<>(chunkSize);
+        String message = null;
+        int index = 0;
+
+        while (true) {
+            TransferRequest req;
+            try {
+                if (!requests.hasNext()) {
+                    break;
+                }
+                if (index >= maxItems) {
+                    message = "Batch truncated at " + maxItems + " items";
+                    break;
+                }
+                req = requests.next();
+            } catch (RuntimeException e) {
+                // Malformed input: everything read so far is still posted
+                message = "Input unreadable after item " + index + ": " + e.getMessage();
+                break;
+            }
+
+            String error = validate(req);
+            if (error != null) {
+                items.add(BatchItemResult.builder().index(index).status("REJECTED").error(error).build());
+            } else if (stored.containsKey(index)) {
+                items.add(BatchItemResult.builder().index(index).status("ACCEPTED").transactionId(stored.get(index)).build());
+            } else {
+                BatchItemResult result = BatchItemResult.builder().index(index).status("ACCEPTED").build();
+                items.add(result);
+                chunkResults.add(result);
+                chunk.add(toTransaction(req, batchId, index));
+                if (chunk.size() == chunkSize) {
+                    store(chunk, chunkResults);
+                    chunk = new ArrayList<>(chunkSize);
+                    chunkResults = new ArrayList<>(chunkSize);
+                }
+            }
+            index++;
+        }
+        if (!chunk.isEmpty()) {
+            store(chunk, chunkResults);
+        }
+
+        int accepted = (int) items.stream().filter(i -> "ACCEPTED".equals(i.getStatus())).count();
+        return BatchResult.builder()
+            .batchId(batchId)
+            .accepted(accepted)
+            .rejected(items.size() - accepted)
+            .message(message)
+            .items(items)
+            .build();
+    }
+
+    /**
+     * Row counts of the batch by status, to follow its progress.
+     */
+    public Map<String, Long> status(String batchId) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Object[] row : transactionRepository.countByBatchIdGroupByStatus(batchId)) {
+            counts.put(row[0].toString(), (Long) row[1]);
+        }
+        return counts;
+    }
+
+    // Random without a key; with one, the same for every retry of the caller's batch
+    private static String batchId(String caller, String idempotencyKey) {
+        String seed = idempotencyKey != null
+            ? IdempotencyService.fingerprint("batch", caller, idempotencyKey)
+            : UUID.randomUUID().toString().replace("-", "");
+        return "BAT" + seed.substring(0, 20).toUpperCase();
+    }
+
+    private Map<Integer, String> storedItems(String batchId) {
+        Map<Integer, String> stored = new HashMap<>();
+        for (Object[] row : transactionRepository.findBatchItems(batchId)) {
+            stored.put((Integer) row[0], (String) row[1]);
+        }
+        return stored;
+    }
+
+    private void store(List<Transaction> chunk, List<BatchItemResult> results) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> transactionRepository.saveAll(chunk));
+        } catch (DataIntegrityViolationException e) {
+            // Another post of the same batch stored these items first
+            throw new IdempotencyConflictException(chunk.get(0).getBatchId());
+        }
+        transferEngine.hold(chunk);
+        for (int i = 0; i < chunk.size(); i++) {
+            results.get(i).setTransactionId(chunk.get(i).getTransactionId());
+        }
+        dispatcher.execute(() -> {
+            try {
+                for (Transaction txn : chunk) {
+                    transferEngine.enqueue(txn);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private static String validate(TransferRequest req) {
+        if (req.getFromAccountId() == null) return "fromAccountId is required";
+        if (req.getToAccountNumber() == null || req.getToAccountNumber().isBlank()) return "toAccountNumber is required";
+        BigDecimal amount = req.getAmount();
+        if (amount == null || amount.signum() <= 0) return "Amount must be positive";
+        if (amount.stripTrailingZeros().scale() > 2) return "Amount has more than 2 decimal places";
+        return null;
+    }
+
+    private static Transaction toTransaction(TransferRequest req, String batchId, int index) {
+        return Transaction.builder()
+            .amount(req.getAmount())
+            .currency("NPR")
+            .transactionType(Transaction.TransactionType.TRANSFER)
+            .transactionStatus(Transaction.TransactionStatus.PENDING)
+            .description(req.getDescription() != null ? req.getDescription() : "Transfer")
+            .fromAccountId(req.getFromAccountId())
+            .toAccountNumber(req.getToAccountNumber())
+            .batchId(batchId)
+            .batchIndex(index)
+            .build();
+    }
+
+    private static class CsvRequests implements Iterator<TransferRequest> {
+        private final BufferedReader reader;
+        private String next;
+
+        CsvRequests(BufferedReader reader) {
+            this.reader = reader;
+            this.next = readLine();
+            if (next != null && next.toLowerCase().startsWith("fromaccountid")) {
+                this.next = readLine();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public TransferRequest next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            String line = next;
+            next = readLine();
+            return parse(line);
+        }
+
+        // A line that does not parse becomes an empty request, so it is rejected by validate()
+        private static TransferRequest parse(String line) {
+            String[] fields = line.split(",", 4);
+            TransferRequest req = new TransferRequest();
+            try {
+                req.setFromAccountId(Long.valueOf(fields[0].trim()));
+                req.setToAccountNumber(fields.length > 1 ? fields[1].trim() : null);
+                req.setAmount(fields.length > 2 ? new BigDecimal(fields[2].trim()) : null);
+                req.setDescription(fields.length > 3 ? fields[3].trim() : null);
+            } catch (NumberFormatException e) {
+                return new TransferRequest();
+            }
+            return req;
+        }
+
+        private String readLine() {
+            try {
+                String line;
+                do {
+                    line = reader.readLine();
+                } while (line != null && line.isBlank());
+                return line;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        dispatcher.shutdownNow();
+    }
+}
@@ -0,0 +1,10 @@
+package com.ba.transactionservice.service;
+
+/**
+ * The same Idempotency-Key is being processed by another instance and has no result yet.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+    public IdempotencyConflictException(String key) {
+        super("Request with Idempotency-Key " + key + " is still in progress");
+    }
+}
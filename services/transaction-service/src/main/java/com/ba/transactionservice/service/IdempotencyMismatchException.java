@@ -0,0 +1,10 @@
+package com.ba.transactionservice.service;
+
+/**
+ * The Idempotency-Key was already used by the same caller for a request with different content.
+ */
+public class IdempotencyMismatchException extends RuntimeException {
+    public IdempotencyMismatchException(String key) {
+        super("Idempotency-Key " + key + " was already used for a different request");
+    }
+}
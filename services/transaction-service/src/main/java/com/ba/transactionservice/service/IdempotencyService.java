@@ -0,0 +1,248 @@
+package com.ba.transactionservice.service;
+import com.ba.transactionservice.model.Transaction;
+import com.ba.transactionservice.repository.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Runs a write at most once per caller and Idempotency-Key. Duplicates arriving at this instance
+ * share the first request's future from a bounded in-memory index of recent keys. Across instances
+ * the key is claimed with an insert into idempotency_keys before the write runs; a later duplicate
+ * reads the stored transaction back instead of writing again. Each key also stores a hash of the
+ * request, and reusing the key for a different request is rejected.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+    public static final int MAX_KEY_LENGTH = 100;
+    private static final String ANONYMOUS = "-";
+
+    // A key whose row has expired may be claimed again
+    private static final String CLAIM_SQL = """
+        INSERT INTO idempotency_keys (idem_key, request_hash, expires_at) VALUES (?, ?, ?)
+        ON CONFLICT (idem_key) DO UPDATE
+            SET transaction_row_id = NULL, error = NULL,
+                request_hash = EXCLUDED.request_hash, expires_at = EXCLUDED.expires_at
+            WHERE idempotency_keys.expires_at < ?
+        """;
+    private static final String LOOKUP_SQL =
+        "SELECT transaction_row_id, error, request_hash FROM idempotency_keys WHERE idem_key = ?";
+    private static final String RECORD_SQL =
+        "UPDATE idempotency_keys SET transaction_row_id = ?, error = ? WHERE idem_key = ?";
+    private static final String RELEASE_SQL =
+        "DELETE FROM idempotency_keys WHERE idem_key = ? AND transaction_row_id IS NULL";
+    private static final String PURGE_SQL = "DELETE FROM idempotency_keys WHERE expires_at < ?";
+
+    // transactionRowId is null while the first request is still running
+    record Stored(Long transactionRowId, String error, String requestHash) {
+    }
+
+    private record Entry(CompletableFuture<Transaction> result, String requestHash, long expiresAtMillis) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionRepository transactionRepository;
+    private final Duration ttl;
+    private final Duration localTtl;
+    private final int localMaxSize;
+    private final Map<String, Entry> recent = new ConcurrentHashMap<>();
+    // Outcomes of transfers complete on engine lane threads; the key is recorded off the lane
+    private final ExecutorService recorder = Executors.newFixedThreadPool(2, r -> {
+        Thread thread = new Thread(r, "idempotency-recorder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IdempotencyService(JdbcTemplate jdbcTemplate,
+                              TransactionRepository transactionRepository,
+                              @Value("${transfers.idempotency.ttl:PT24H}") Duration ttl,
+                              @Value("${transfers.idempotency.local-ttl:PT10M}") Duration localTtl,
+                              @Value("${transfers.idempotency.local-max-size:100000}") int localMaxSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionRepository = transactionRepository;
+        this.ttl = ttl;
+        this.localTtl = localTtl;
+        this.localMaxSize = localMaxSize;
+    }
+
+    /**
+     * Hash identifying a request's content, e.g. {@code fingerprint(accountId, amount, description)}.
+     * Amounts are compared by value, so 10 and 10.00 are the same request.
+     */
+    public static String fingerprint(Object... parts) {
+        StringBuilder text = new StringBuilder();
+        for (Object part : parts) {
+            Object value = part instanceof BigDecimal amount ? amount.stripTrailingZeros().toPlainString() : part;
+            text.append(value).append('\u0000');
+        }
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(text.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Runs the action unless the caller already used the key for this operation, in which case the
+     * original result (or {@link TransferFailedException}) is returned. Reusing the key with a
+     * different request hash fails with {@link IdempotencyMismatchException}. A request that failed
+     * before anything was stored releases its key so the client may retry it. Without a key the
+     * action just runs.
+     */
+    public CompletableFuture<Transaction> execute(String operation, String caller, String key, String requestHash,
+                                                  Supplier<CompletableFuture<Transaction>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return CompletableFuture.failedFuture(
+                new RuntimeException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters"));
+        }
+
+        String id = operation + ":" + (caller == null || caller.isBlank() ? ANONYMOUS : caller) + ":" + key;
+        long now = System.currentTimeMillis();
+        Entry mine = new Entry(new CompletableFuture<>(), requestHash, now + localTtl.toMillis());
+        // When the index is full of running requests this one is only guarded by the database claim
+        Entry existing = hasRoom(now) ? recent.putIfAbsent(id, mine) : recent.get(id);
+        if (existing != null) {
+            if (!existing.requestHash().equals(requestHash)) {
+                return CompletableFuture.failedFuture(new IdempotencyMismatchException(key));
+            }
+            if (existing.expiresAtMillis() > now) {
+                return existing.result();
+            }
+            if (!recent.replace(id, existing, mine)) {
+                return execute(operation, caller, key, requestHash, action);
+            }
+        }
+
+        try {
+            run(id, key, mine, action);
+        } catch (RuntimeException e) {
+            recent.remove(id, mine);
+            mine.result().completeExceptionally(e);
+        }
+        return mine.result();
+    }
+
+    private void run(String id, String key, Entry mine, Supplier<CompletableFuture<Transaction>> action) {
+        CompletableFuture<Transaction> result = mine.result();
+        if (!claim(id, mine.requestHash())) {
+            Stored stored = lookup(id);
+            if (stored != null && !mine.requestHash().equals(stored.requestHash())) {
+                recent.remove(id, mine);
+                result.completeExceptionally(new IdempotencyMismatchException(key));
+                return;
+            }
+            if (stored == null || stored.transactionRowId() == null) {
+                recent.remove(id, mine);
+                result.completeExceptionally(new IdempotencyConflictException(key));
+                return;
+            }
+            Transaction txn = transactionRepository.findById(stored.transactionRowId())
+                .orElseThrow(() -> new RuntimeException("Transaction not found: " + stored.transactionRowId()));
+            if (stored.error() != null) {
+                result.completeExceptionally(new TransferFailedException(txn, stored.error()));
+            } else {
+                result.complete(txn);
+            }
+            return;
+        }
+
+        CompletableFuture<Transaction> outcome;
+        try {
+            outcome = action.get();
+        } catch (RuntimeException e) {
+            outcome = CompletableFuture.failedFuture(e);
+        }
+        outcome.whenCompleteAsync((txn, e) -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            try {
+                if (txn != null) {
+                    record(id, txn.getId(), null);
+                } else if (cause instanceof TransferFailedException failed && failed.getTransaction().getId() != null) {
+                    record(id, failed.getTransaction().getId(), failed.getMessage());
+                } else {
+                    recent.remove(id, mine);
+                    release(id);
+                }
+            } catch (RuntimeException dbError) {
+                // The claim stays until it expires: duplicates get a conflict, never a second write
+                log.warn("Could not record Idempotency-Key {}: {}", id, dbError.getMessage());
+            }
+            if (cause != null) {
+                result.completeExceptionally(cause);
+            } else {
+                result.complete(txn);
+            }
+        }, recorder);
+    }
+
+    boolean claim(String id, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.update(CLAIM_SQL, id, requestHash, Timestamp.valueOf(now.plus(ttl)), Timestamp.valueOf(now)) == 1;
+    }
+
+    Stored lookup(String id) {
+        List<Stored> rows = jdbcTemplate.query(LOOKUP_SQL,
+            (rs, i) -> new Stored(rs.getObject("transaction_row_id", Long.class), rs.getString("error"),
+                rs.getString("request_hash")), id);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    void record(String id, Long transactionRowId, String error) {
+        jdbcTemplate.update(RECORD_SQL, transactionRowId, error, id);
+    }
+
+    void release(String id) {
+        jdbcTemplate.update(RELEASE_SQL, id);
+    }
+
+    // Makes room by dropping finished entries, expired ones first; their replays fall back to the database
+    private boolean hasRoom(long now) {
+        if (recent.size() < localMaxSize) {
+            return true;
+        }
+        recent.values().removeIf(e -> e.expiresAtMillis() <= now && e.result().isDone());
+        if (recent.size() >= localMaxSize) {
+            recent.values().removeIf(e -> e.result().isDone());
+        }
+        return recent.size() < localMaxSize;
+    }
+
+    @Scheduled(fixedDelayString = "${transfers.idempotency.purge-interval:600000}")
+    public void purge() {
+        long now = System.currentTimeMillis();
+        recent.values().removeIf(e -> e.expiresAtMillis() <= now && e.result().isDone());
+        int purged = jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(LocalDateTime.now()));
+        if (purged > 0) {
+            log.debug("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        recorder.shutdown();
+    }
+}
@@ -0,0 +1,50 @@
+package com.ba.transactionservice.service;
+import com.ba.transactionservice.model.Transaction;
+import com.ba.transactionservice.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Drives PENDING transfers that have no outcome back through the {@link TransferEngine}: ones
+ * whose debit or credit timed out, and ones left queued when an instance stopped (including
+ * bulk batch rows). Rows younger than min-age are assumed to still be in progress somewhere.
+ * Every money movement is keyed by the transactionId, so running a transfer again is safe.
+ */
+@Slf4j
+@Component
+public class PendingTransferReconciler {
+    private final TransactionRepository transactionRepository;
+    private final TransferEngine transferEngine;
+    private final Duration minAge;
+    private final int batchSize;
+
+    public PendingTransferReconciler(TransactionRepository transactionRepository,
+                                     TransferEngine transferEngine,
+                                     @Value("${transfers.reconcile.min-age:PT5M}") Duration minAge,
+                                     @Value("${transfers.reconcile.batch-size:1000}") int batchSize) {
+        this.transactionRepository = transactionRepository;
+        this.transferEngine = transferEngine;
+        this.minAge = minAge;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${transfers.reconcile.interval:60000}")
+    public void reconcile() {
+        List<Transaction> pending = transactionRepository.findPendingTransfers(
+            LocalDateTime.now().minus(minAge), batchSize);
+        int queued = 0;
+        for (Transaction txn : pending) {
+            if (transferEngine.recover(txn)) {
+                queued++;
+            }
+        }
+        if (queued > 0) {
+            log.info("Re-queued {} PENDING transfers for reconciliation", queued);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.ba.transactionservice.service;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Transaction ids used to come from an IDENTITY column. When ddl-auto creates transactions_seq
+ * next to existing rows it starts at 1, so it is moved past the highest id once at startup.
+ * This runs right after the schema update, while the context is still being built, so no
+ * request, listener or scheduled job can insert a transaction before the sequence is moved.
+ */
+@Slf4j
+@Component @RequiredArgsConstructor
+@DependsOn("entityManagerFactory")
+public class TransactionSequenceAligner {
+    // The pooled optimizer hands out (value - 49 .. value), so stay a full block above max(id)
+    private static final String ALIGN_SQL = """
+        SELECT setval('transactions_seq', m.max_id + 50)
+        FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM transactions) m, transactions_seq s
+        WHERE s.last_value - 50 < m.max_id
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void align() {
+        jdbcTemplate.queryForList(ALIGN_SQL, Long.class)
+            .forEach(value -> log.info("Moved transactions_seq to {}", value));
+    }
+}
@@ -1,20 +1,73 @@
 package com.ba.transactionservice.service;
+import com.ba.transactionservice.dto.HistoryPage;
 import com.ba.transactionservice.dto.TransferRequest;
 import com.ba.transactionservice.model.Transaction;
 import com.ba.transactionservice.repository.TransactionRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Service @RequiredArgsConstructor
 public class TransactionService {
     private final TransactionRepository transactionRepository;
+    private final TransferEngine transferEngine;
+
+    // Bounds for an open-ended range; both fit Postgres timestamps
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 1, 1, 0, 0);
+
+    @Value("${transactions.history.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${transactions.history.max-page-size:200}")
+    private int maxPageSize;
 
     public List<Transaction> getByAccountId(Long accountId) {
-        return transactionRepository.findByFromAccountIdOrToAccountIdOrderByCreatedAtDesc(accountId, accountId);
+        return transactionRepository.findByAccountId(accountId);
+    }
+
+    /**
+     * One page of an account's history, newest first. {@code from} and {@code to} are inclusive
+     * dates; the cursor comes from the previous page and pins the position even while new rows
+     * arrive. Page size is capped at transactions.history.max-page-size.
+     */
+    public HistoryPage getHistory(Long accountId, LocalDate from, LocalDate to, String cursor, Integer size) {
+        int pageSize = Math.min(size != null && size > 0 ? size : defaultPageSize, maxPageSize);
+        LocalDateTime cursorAt = LATEST;
+        long cursorId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("_", 2);
+                cursorAt = LocalDateTime.parse(parts[0]);
+                cursorId = Long.parseLong(parts[1]);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid cursor: " + cursor);
+            }
+        }
+
+        // One extra row tells whether another page follows
+        List<Transaction> rows = transactionRepository.findHistory(accountId,
+            from != null ? from.atStartOfDay() : EARLIEST,
+            to != null ? to.plusDays(1).atStartOfDay() : LATEST,
+            cursorAt, cursorId, pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return HistoryPage.builder().items(rows).build();
+        }
+        List<Transaction> items = rows.subList(0, pageSize);
+        Transaction last = items.get(pageSize - 1);
+        String next = last.getCreatedAt() + "_" + last.getId();
+        return HistoryPage.builder()
+            .items(items)
+            .nextCursor(Base64.getUrlEncoder().withoutPadding().encodeToString(next.getBytes(StandardCharsets.UTF_8)))
+            .build();
     }
 
     public List<Transaction> getAll() {
@@ -35,18 +88,11 @@ public class TransactionService {
         return transactionRepository.findToday(startOfDay);
     }
 
-    @Transactional
-    public Transaction transfer(TransferRequest req) {
-        Transaction txn = Transaction.builder()
-            .amount(req.getAmount())
-            .currency("NPR")
-            .transactionType(Transaction.TransactionType.TRANSFER)
-            .transactionStatus(Transaction.TransactionStatus.COMPLETED)
-            .description(req.getDescription() != null ? req.getDescription() : "Transfer")
-            .fromAccountId(req.getFromAccountId())
-            .toAccountNumber(req.getToAccountNumber())
-            .build();
-        return transactionRepository.save(txn);
+    /**
+     * Moves the money through the {@link TransferEngine}; completes once the outcome is committed.
+     */
+    public CompletableFuture<Transaction> transfer(TransferRequest req) {
+        return transferEngine.submit(req);
     }
 
     @Transactional
@@ -0,0 +1,300 @@
+package com.ba.transactionservice.service;
+import com.ba.transactionservice.dto.TransferRequest;
+import com.ba.transactionservice.model.Transaction;
+import com.ba.transactionservice.repository.TransactionRepository;
+import com.ba.transactionservice.service.AccountClient.OutcomeUnknownException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Executes transfers on single-writer lanes. Each source account maps to one lane, so all
+ * debits of an account run one at a time in arrival order, and no two transfers ever hold
+ * locks on the same pair of accounts in opposite order. Balance changes themselves are
+ * single-statement updates in account-service.
+ *
+ * A lane takes up to {@code batch-size} queued transfers at once and commits them together:
+ * one batched insert of PENDING rows before any money moves, one JDBC batch update with the
+ * outcomes after. Debit, credit and refund are sent with keys derived from the transactionId,
+ * so a transfer whose outcome is unknown (timeout, crash) stays PENDING and is safely driven
+ * again by {@link PendingTransferReconciler}.
+ */
+@Slf4j
+@Component
+public class TransferEngine {
+    private static final String OUTCOME_SQL =
+        "UPDATE transactions SET transaction_status = ?, to_account_id = ? WHERE id = ?";
+
+    private final TransactionRepository transactionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountClient accountClient;
+    private final List<Lane> lanes = new ArrayList<>();
+    // Row ids queued or running on this instance; the reconciler leaves these alone
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final int laneCount;
+    private final int queueCapacity;
+    private final int batchSize;
+
+    public TransferEngine(TransactionRepository transactionRepository,
+                          JdbcTemplate jdbcTemplate,
+                          TransactionTemplate transactionTemplate,
+                          AccountClient accountClient,
+                          @Value("${transfers.engine.lanes:16}") int laneCount,
+                          @Value("${transfers.engine.queue-capacity:10000}") int queueCapacity,
+                          @Value("${transfers.engine.batch-size:100}") int batchSize) {
+        this.transactionRepository = transactionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.accountClient = accountClient;
+        this.laneCount = laneCount;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    void start() {
+        for (int i = 0; i < laneCount; i++) {
+            Lane lane = new Lane(i, queueCapacity);
+            lanes.add(lane);
+            lane.thread.start();
+        }
+    }
+
+    /**
+     * Queues the transfer on its source account's lane. The future completes with the
+     * COMPLETED transaction, with a PENDING one if the outcome could not be confirmed or recorded,
+     * or fails with {@link TransferFailedException}.
+     */
+    public CompletableFuture<Transaction> submit(TransferRequest req) {
+        CompletableFuture<Transaction> future = new CompletableFuture<>();
+        if (req.getFromAccountId() == null || req.getToAccountNumber() == null) {
+            future.completeExceptionally(new RuntimeException("fromAccountId and toAccountNumber are required"));
+            return future;
+        }
+        if (req.getAmount() == null || req.getAmount().signum() <= 0) {
+            future.completeExceptionally(new RuntimeException("Amount must be positive"));
+            return future;
+        }
+
+        Transaction txn = Transaction.builder()
+            .amount(req.getAmount())
+            .currency("NPR")
+            .transactionType(Transaction.TransactionType.TRANSFER)
+            .transactionStatus(Transaction.TransactionStatus.PENDING)
+            .description(req.getDescription() != null ? req.getDescription() : "Transfer")
+            .fromAccountId(req.getFromAccountId())
+            .toAccountNumber(req.getToAccountNumber())
+            .build();
+        if (!laneOf(txn).queue.offer(new PendingTransfer(txn, future, false))) {
+            future.completeExceptionally(new RuntimeException("Transfer queue is full, please retry shortly"));
+        }
+        return future;
+    }
+
+    /**
+     * Marks persisted PENDING transfers as owned by this instance until they are enqueued,
+     * so the reconciler does not pick them up while they wait.
+     */
+    public void hold(List<Transaction> persisted) {
+        persisted.forEach(txn -> inFlight.add(txn.getId()));
+    }
+
+    /**
+     * Queues an already persisted PENDING transfer, waiting for room on its lane.
+     * Used for bulk postings, where the caller does not wait for each outcome.
+     */
+    public void enqueue(Transaction persisted) throws InterruptedException {
+        inFlight.add(persisted.getId());
+        laneOf(persisted).queue.put(new PendingTransfer(persisted, new CompletableFuture<>(), false));
+    }
+
+    /**
+     * Queues a PENDING transfer whose earlier attempt has no recorded outcome. Returns false if
+     * it is already in flight here or its lane is full.
+     */
+    public boolean recover(Transaction pending) {
+        if (!inFlight.add(pending.getId())) {
+            return false;
+        }
+        if (!laneOf(pending).queue.offer(new PendingTransfer(pending, new CompletableFuture<>(), true))) {
+            inFlight.remove(pending.getId());
+            return false;
+        }
+        return true;
+    }
+
+    private Lane laneOf(Transaction txn) {
+        return lanes.get(Math.floorMod(txn.getFromAccountId().hashCode(), lanes.size()));
+    }
+
+    // Inserts the new transfers as PENDING rows. If the insert fails nothing of theirs was
+    // committed, so they fail with a plain error (releasing their Idempotency-Key) and only
+    // the already persisted transfers of the batch go on
+    private List<PendingTransfer> store(List<PendingTransfer> batch) {
+        List<PendingTransfer> fresh = new ArrayList<>();
+        for (PendingTransfer pending : batch) {
+            if (pending.transaction().getId() == null) {
+                fresh.add(pending);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return batch;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                transactionRepository.saveAll(fresh.stream().map(PendingTransfer::transaction).toList()));
+            return batch;
+        } catch (RuntimeException e) {
+            log.error("Could not store {} transfers: {}", fresh.size(), e.getMessage());
+            List<PendingTransfer> stored = new ArrayList<>(batch.size() - fresh.size());
+            for (PendingTransfer pending : batch) {
+                if (fresh.contains(pending)) {
+                    pending.future().completeExceptionally(e);
+                } else {
+                    stored.add(pending);
+                }
+            }
+            return stored;
+        }
+    }
+
+    private void settle(List<PendingTransfer> batch) {
+        List<Transaction> txns = new ArrayList<>(batch.size());
+        String[] failures = new String[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            PendingTransfer pending = batch.get(i);
+            txns.add(pending.transaction());
+            failures[i] = pending.recovered() ? resume(pending.transaction()) : move(pending.transaction());
+        }
+
+        jdbcTemplate.batchUpdate(OUTCOME_SQL, txns, txns.size(), (ps, txn) -> {
+            ps.setString(1, txn.getTransactionStatus().name());
+            ps.setObject(2, txn.getToAccountId(), Types.BIGINT);
+            ps.setLong(3, txn.getId());
+        });
+
+        for (int i = 0; i < batch.size(); i++) {
+            inFlight.remove(txns.get(i).getId());
+            CompletableFuture<Transaction> future = batch.get(i).future();
+            if (failures[i] == null) {
+                future.complete(txns.get(i));
+            } else {
+                future.completeExceptionally(new TransferFailedException(txns.get(i), failures[i]));
+            }
+        }
+    }
+
+    // The row exists and money may already have moved, so the caller gets the PENDING
+    // transaction (its Idempotency-Key is kept) and the reconciler settles it from the keys
+    private void leavePending(PendingTransfer pending) {
+        Transaction txn = pending.transaction();
+        txn.setTransactionStatus(Transaction.TransactionStatus.PENDING);
+        inFlight.remove(txn.getId());
+        pending.future().complete(txn);
+    }
+
+    // A refund is only sent after the credit was definitely rejected, so an applied refund
+    // settles the transfer as FAILED; otherwise every step is repeated under its original key
+    private String resume(Transaction txn) {
+        try {
+            if (accountClient.isApplied(txn.getTransactionId() + ":refund")) {
+                txn.setTransactionStatus(Transaction.TransactionStatus.FAILED);
+                return "Transfer failed and was refunded";
+            }
+        } catch (OutcomeUnknownException e) {
+            log.warn("Transfer {} still unresolved: {}", txn.getTransactionId(), e.getMessage());
+            return null;
+        }
+        return move(txn);
+    }
+
+    // Returns the failure reason, or null when the money moved or the outcome is left PENDING
+    private String move(Transaction txn) {
+        String key = txn.getTransactionId();
+        try {
+            txn.setToAccountId(accountClient.resolveAccountId(txn.getToAccountNumber()));
+            accountClient.debit(txn.getFromAccountId(), txn.getAmount(), key + ":debit");
+        } catch (OutcomeUnknownException e) {
+            log.warn("Debit for {} left PENDING: {}", key, e.getMessage());
+            return null;
+        } catch (RuntimeException e) {
+            txn.setTransactionStatus(Transaction.TransactionStatus.FAILED);
+            return e.getMessage();
+        }
+
+        try {
+            accountClient.credit(txn.getToAccountId(), txn.getAmount(), key + ":credit");
+            txn.setTransactionStatus(Transaction.TransactionStatus.COMPLETED);
+            return null;
+        } catch (OutcomeUnknownException e) {
+            log.warn("Credit for {} left PENDING: {}", key, e.getMessage());
+            return null;
+        } catch (RuntimeException e) {
+            try {
+                accountClient.credit(txn.getFromAccountId(), txn.getAmount(), key + ":refund");
+                txn.setTransactionStatus(Transaction.TransactionStatus.FAILED);
+            } catch (RuntimeException refundFailure) {
+                // Left PENDING with the source debited; the reconciler retries the refund
+                log.error("Refund of {} to account {} failed for {}: {}", txn.getAmount(),
+                    txn.getFromAccountId(), key, refundFailure.getMessage());
+            }
+            return e.getMessage();
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        lanes.forEach(lane -> lane.thread.interrupt());
+    }
+
+    private record PendingTransfer(Transaction transaction, CompletableFuture<Transaction> future, boolean recovered) {
+    }
+
+    private class Lane implements Runnable {
+        private final BlockingQueue<PendingTransfer> queue;
+        private final Thread thread;
+
+        Lane(int index, int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.thread = new Thread(this, "transfer-lane-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<PendingTransfer> batch = new ArrayList<>(batchSize);
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                queue.drainTo(batch, batchSize - 1);
+                List<PendingTransfer> stored = store(batch);
+                try {
+                    settle(stored);
+                } catch (RuntimeException e) {
+                    log.error("Transfer batch of {} failed on {}, left PENDING: {}", stored.size(), thread.getName(), e.getMessage());
+                    stored.forEach(TransferEngine.this::leavePending);
+                }
+                batch.clear();
+            }
+            RuntimeException stopped = new RuntimeException("Transfer engine stopped");
+            queue.forEach(p -> p.future().completeExceptionally(stopped));
+        }
+    }
+}
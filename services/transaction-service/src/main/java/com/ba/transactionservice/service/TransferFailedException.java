@@ -0,0 +1,13 @@
+package com.ba.transactionservice.service;
+import com.ba.transactionservice.model.Transaction;
+import lombok.Getter;
+
+@Getter
+public class TransferFailedException extends RuntimeException {
+    private final transient Transaction transaction;
+
+    public TransferFailedException(Transaction transaction, String message) {
+        super(message);
+        this.transaction = transaction;
+    }
+}
@@ -0,0 +1,219 @@
+package com.ba.transactionservice.service;
+
+import com.ba.transactionservice.dto.BatchItemResult;
+import com.ba.transactionservice.dto.BatchResult;
+import com.ba.transactionservice.model.Transaction;
+import com.ba.transactionservice.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchTransferServiceTest {
+
+    // Runs the callback inline, without a transaction manager
+    private static final TransactionTemplate INLINE = new TransactionTemplate() {
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            return action.doInTransaction(new SimpleTransactionStatus());
+        }
+    };
+
+    private TransactionRepository transactionRepository;
+    private TransferEngine transferEngine;
+    private BatchTransferService service;
+    private final List<List<Transaction>> saved = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository = mock(TransactionRepository.class);
+        when(transactionRepository.saveAll(anyIterable())).thenAnswer(call -> {
+            List<Transaction> chunk = new ArrayList<>();
+            Iterable<Transaction> txns = call.getArgument(0);
+            txns.forEach(txn -> {
+                txn.setTransactionId("TXN-" + txn.getBatchIndex());
+                chunk.add(txn);
+            });
+            saved.add(chunk);
+            return chunk;
+        });
+        transferEngine = mock(TransferEngine.class);
+        service = new BatchTransferService(transactionRepository, INLINE, transferEngine, new ObjectMapper(), 3, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String item(long from, String to, String amount) {
+        return "{\"fromAccountId\":" + from + ",\"toAccountNumber\":\"" + to + "\",\"amount\":" + amount + "}";
+    }
+
+    @Test
+    void rejectsInvalidItemsAsTheyAreRead() throws Exception {
+        String json = "[" + String.join(",",
+            item(1, "ACC2", "10.00"),
+            "{\"toAccountNumber\":\"ACC2\",\"amount\":5}",
+            item(1, "ACC2", "-1"),
+            item(1, "ACC2", "0.001"),
+            item(1, " ", "3")) + "]";
+
+        BatchResult result = service.postJson(body(json), "7", null);
+
+        assertEquals(1, result.getAccepted());
+        assertEquals(4, result.getRejected());
+        List<BatchItemResult> items = result.getItems();
+        assertEquals("ACCEPTED", items.get(0).getStatus());
+        assertEquals("fromAccountId is required", items.get(1).getError());
+        assertEquals("Amount must be positive", items.get(2).getError());
+        assertEquals("Amount has more than 2 decimal places", items.get(3).getError());
+        assertEquals("toAccountNumber is required", items.get(4).getError());
+        assertEquals(1, saved.size());
+        assertEquals(1, saved.get(0).size());
+    }
+
+    @Test
+    void storesAcceptedItemsInChunks() throws Exception {
+        List<String> requests = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            requests.add(item(i + 1, "ACC2", "1.50"));
+        }
+
+        BatchResult result = service.postJson(body("[" + String.join(",", requests) + "]"), "7", null);
+
+        assertEquals(7, result.getAccepted());
+        assertEquals(List.of(3, 3, 1), saved.stream().map(List::size).toList());
+        verify(transferEngine, times(3)).hold(anyList());
+        for (BatchItemResult item : result.getItems()) {
+            assertEquals("TXN-" + item.getIndex(), item.getTransactionId());
+        }
+        assertTrue(saved.stream().flatMap(List::stream)
+            .allMatch(txn -> txn.getBatchId().equals(result.getBatchId())
+                && txn.getTransactionStatus() == Transaction.TransactionStatus.PENDING));
+    }
+
+    @Test
+    void skipsTheCsvHeaderAndBlankLines() {
+        String csv = "fromAccountId,toAccountNumber,amount,description\n"
+            + "1,ACC2,10.00,Salary\n"
+            + "\n"
+            + "2,ACC3,5\n";
+
+        BatchResult result = service.postCsv(body(csv), "7", null);
+
+        assertEquals(2, result.getAccepted());
+        assertEquals(0, result.getRejected());
+        Transaction first = saved.get(0).get(0);
+        assertEquals(1L, first.getFromAccountId());
+        assertEquals("ACC2", first.getToAccountNumber());
+        assertEquals("Salary", first.getDescription());
+        assertEquals("Transfer", saved.get(0).get(1).getDescription());
+    }
+
+    @Test
+    void rejectsAMalformedCsvLineAndKeepsGoing() {
+        String csv = "1,ACC2,10.00\n"
+            + "x,ACC2,abc\n"
+            + "3,ACC4,2\n";
+
+        BatchResult result = service.postCsv(body(csv), "7", null);
+
+        assertEquals(2, result.getAccepted());
+        assertEquals("REJECTED", result.getItems().get(1).getStatus());
+        assertEquals("ACCEPTED", result.getItems().get(2).getStatus());
+    }
+
+    @Test
+    void postsWhatWasReadBeforeUnreadableJson() throws Exception {
+        String json = "[" + item(1, "ACC2", "10.00") + ",{\"fromAccountId\":";
+
+        BatchResult result = service.postJson(body(json), "7", null);
+
+        assertEquals(1, result.getAccepted());
+        assertNotNull(result.getMessage());
+        assertTrue(result.getMessage().startsWith("Input unreadable after item 1"));
+        assertEquals(1, saved.size());
+    }
+
+    @Test
+    void retryWithTheSameKeyStoresOnlyTheMissingItems() throws Exception {
+        String json = "[" + item(1, "ACC2", "10.00") + "," + item(2, "ACC3", "20.00") + "]";
+        BatchResult first = service.postJson(body(json), "7", "payroll-2026-10");
+        when(transactionRepository.findBatchItems(first.getBatchId()))
+            .thenReturn(List.<Object[]>of(new Object[] { 0, "TXN-0" }));
+        saved.clear();
+
+        BatchResult retry = service.postJson(body(json), "7", "payroll-2026-10");
+
+        assertEquals(first.getBatchId(), retry.getBatchId());
+        assertEquals(2, retry.getAccepted());
+        assertEquals("TXN-0", retry.getItems().get(0).getTransactionId());
+        assertEquals(1, saved.size());
+        assertEquals(1, saved.get(0).get(0).getBatchIndex());
+    }
+
+    @Test
+    void batchIdIsRandomWithoutAKey() throws Exception {
+        String json = "[" + item(1, "ACC2", "10.00") + "]";
+
+        String first = service.postJson(body(json), "7", null).getBatchId();
+        String second = service.postJson(body(json), "7", null).getBatchId();
+
+        assertNotEquals(first, second);
+        verify(transactionRepository, never()).findBatchItems(anyString());
+    }
+
+    @Test
+    void concurrentPostOfTheSameBatchIsAConflict() {
+        when(transactionRepository.saveAll(anyIterable()))
+            .thenThrow(new DataIntegrityViolationException("uk_transactions_batch_item"));
+
+        assertThrows(IdempotencyConflictException.class,
+            () -> service.postJson(body("[" + item(1, "ACC2", "10.00") + "]"), "7", "payroll-2026-10"));
+        verify(transferEngine, never()).hold(anyList());
+    }
+
+    @Test
+    void truncatesAtMaxItems() throws Exception {
+        List<String> requests = new ArrayList<>();
+        for (int i = 0; i < 101; i++) {
+            requests.add(item(1, "ACC2", "1"));
+        }
+
+        BatchResult result = service.postJson(body("[" + String.join(",", requests) + "]"), "7", null);
+
+        assertEquals(100, result.getAccepted());
+        assertEquals("Batch truncated at 100 items", result.getMessage());
+        assertNull(result.getItems().get(99).getError());
+    }
+}
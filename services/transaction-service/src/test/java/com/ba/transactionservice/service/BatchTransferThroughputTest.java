@@ -0,0 +1,102 @@
+package com.ba.transactionservice.service;
+
+import com.ba.transactionservice.dto.BatchResult;
+import com.ba.transactionservice.dto.TransferRequest;
+import com.ba.transactionservice.model.Transaction;
+import com.ba.transactionservice.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures bulk posting against the per-call path it replaces, on a real Postgres: the same
+ * transfers stored one committed insert at a time (what one /transactions/transfer call per item
+ * costs in the database, before any HTTP overhead) and through {@link BatchTransferService}'s
+ * chunked JDBC batches. Prints both rates and requires the batch to be at least 10x faster.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class BatchTransferThroughputTest {
+
+    private static final int ITEMS = 5_000;
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private static List<TransferRequest> requests() {
+        List<TransferRequest> requests = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            requests.add(new TransferRequest((long) (i % 100 + 1), "ACC" + i, new BigDecimal("12.50"), "Salary"));
+        }
+        return requests;
+    }
+
+    @Test
+    void chunkedBatchOutpacesOneInsertPerTransfer() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        BatchTransferService service = new BatchTransferService(transactionRepository, tx,
+            mock(TransferEngine.class), new ObjectMapper(), 500, 100_000);
+
+        // Warm up the connection pool, Hibernate and the sequence
+        service.post(requests().subList(0, 500).iterator(), "warmup", null);
+
+        long start = System.nanoTime();
+        for (TransferRequest req : requests()) {
+            tx.executeWithoutResult(status -> transactionRepository.save(Transaction.builder()
+                .amount(req.getAmount())
+                .transactionType(Transaction.TransactionType.TRANSFER)
+                .transactionStatus(Transaction.TransactionStatus.PENDING)
+                .description(req.getDescription())
+                .fromAccountId(req.getFromAccountId())
+                .toAccountNumber(req.getToAccountNumber())
+                .build()));
+        }
+        double perCall = ITEMS / ((System.nanoTime() - start) / 1e9);
+
+        start = System.nanoTime();
+        BatchResult result = service.post(requests().iterator(), "7", null);
+        double batched = ITEMS / ((System.nanoTime() - start) / 1e9);
+        service.stop();
+
+        assertEquals(ITEMS, result.getAccepted());
+        System.out.printf("Stored %,d transfers: %,.0f/s one insert per call, %,.0f/s in chunks of 500 (%.1fx)%n",
+            ITEMS, perCall, batched, batched / perCall);
+        // The 20x target also counts the HTTP round-trip per call that the batch saves; the
+        // database share alone has to clear 10x
+        assertTrue(batched >= 10 * perCall, "batched " + batched + "/s vs per call " + perCall + "/s");
+    }
+}
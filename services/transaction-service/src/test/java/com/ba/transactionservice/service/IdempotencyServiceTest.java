@@ -0,0 +1,182 @@
+package com.ba.transactionservice.service;
+
+import com.ba.transactionservice.model.Transaction;
+import com.ba.transactionservice.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Runs against a real Postgres so the ON CONFLICT claim, lookup, record and release statements are exercised
+@Testcontainers(disabledWithoutDocker = true)
+class IdempotencyServiceTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+    // Same shape as the table Hibernate creates for IdempotencyRecord
+    private static final String CREATE_TABLE = """
+        CREATE TABLE IF NOT EXISTS idempotency_keys (
+            idem_key varchar(200) PRIMARY KEY,
+            transaction_row_id bigint,
+            error varchar(255),
+            request_hash varchar(64) NOT NULL,
+            expires_at timestamp(6) NOT NULL
+        )
+        """;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionRepository transactionRepository;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+        jdbcTemplate.execute(CREATE_TABLE);
+        jdbcTemplate.update("DELETE FROM idempotency_keys");
+
+        transactionRepository = mock(TransactionRepository.class);
+        when(transactionRepository.findById(anyLong()))
+                .thenAnswer(call -> Optional.of(Transaction.builder().id(call.getArgument(0)).build()));
+    }
+
+    // A fresh service has an empty local index, like another instance of the service
+    private IdempotencyService instance() {
+        return new IdempotencyService(jdbcTemplate, transactionRepository,
+                Duration.ofHours(24), Duration.ofMinutes(10), 1000);
+    }
+
+    private static CompletableFuture<Transaction> written(long id) {
+        return CompletableFuture.completedFuture(Transaction.builder().id(id).build());
+    }
+
+    private static Throwable failure(CompletableFuture<Transaction> result) throws Exception {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        return e.getCause();
+    }
+
+    @Test
+    void parallelDuplicatesAcrossInstancesWriteOnce() throws Exception {
+        List<IdempotencyService> instances = List.of(instance(), instance());
+        String hash = IdempotencyService.fingerprint(1L, new BigDecimal("10.00"), "Deposit");
+        AtomicInteger writes = new AtomicInteger();
+        int threads = 32;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<CompletableFuture<CompletableFuture<Transaction>>> submissions = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            IdempotencyService service = instances.get(i % 2);
+            submissions.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return service.execute("deposit", "42", "key-1", hash, () -> {
+                    writes.incrementAndGet();
+                    return written(1L);
+                });
+            }, pool));
+        }
+        start.countDown();
+
+        // Duplicates on the other instance either replay the result or see it still in progress
+        for (CompletableFuture<CompletableFuture<Transaction>> submission : submissions) {
+            CompletableFuture<Transaction> result = submission.get(5, TimeUnit.SECONDS);
+            try {
+                assertEquals(1L, result.get(5, TimeUnit.SECONDS).getId());
+            } catch (ExecutionException e) {
+                assertInstanceOf(IdempotencyConflictException.class, e.getCause());
+            }
+        }
+        assertEquals(1, writes.get());
+        pool.shutdown();
+
+        Transaction replayed = instance().execute("deposit", "42", "key-1", hash, () -> written(2L))
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(1L, replayed.getId());
+        assertEquals(1, writes.get());
+    }
+
+    @Test
+    void failureBeforeWriteReleasesKey() throws Exception {
+        String hash = IdempotencyService.fingerprint(1L, new BigDecimal("500"), "Withdrawal");
+        failure(instance().execute("withdrawal", "42", "key-2", hash,
+                () -> CompletableFuture.failedFuture(new RuntimeException("Insufficient funds"))));
+
+        Transaction retried = instance().execute("withdrawal", "42", "key-2", hash, () -> written(2L))
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(2L, retried.getId());
+    }
+
+    @Test
+    void failedTransferIsReplayedFromTheDatabase() throws Exception {
+        String hash = IdempotencyService.fingerprint(1L, "ACC-2", new BigDecimal("50"), "Rent");
+        Transaction failedTxn = Transaction.builder().id(3L).build();
+        failure(instance().execute("transfer", "42", "key-3", hash,
+                () -> CompletableFuture.failedFuture(new TransferFailedException(failedTxn, "Insufficient funds"))));
+
+        Throwable replayed = failure(instance().execute("transfer", "42", "key-3", hash, () -> written(4L)));
+        assertInstanceOf(TransferFailedException.class, replayed);
+        assertEquals(3L, ((TransferFailedException) replayed).getTransaction().getId());
+    }
+
+    @Test
+    void keyReusedForDifferentRequestIsRejected() throws Exception {
+        IdempotencyService service = instance();
+        service.execute("deposit", "42", "key-4", IdempotencyService.fingerprint(1L, new BigDecimal("10"), "Deposit"),
+                () -> written(5L)).get(5, TimeUnit.SECONDS);
+
+        String other = IdempotencyService.fingerprint(1L, new BigDecimal("99"), "Deposit");
+        assertInstanceOf(IdempotencyMismatchException.class,
+                failure(service.execute("deposit", "42", "key-4", other, () -> written(6L))));
+        assertInstanceOf(IdempotencyMismatchException.class,
+                failure(instance().execute("deposit", "42", "key-4", other, () -> written(6L))));
+
+        // Same amount written differently is the same request
+        Transaction replayed = instance().execute("deposit", "42", "key-4",
+                IdempotencyService.fingerprint(1L, new BigDecimal("10.00"), "Deposit"), () -> written(6L))
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(5L, replayed.getId());
+    }
+
+    @Test
+    void keysAreScopedPerCaller() throws Exception {
+        IdempotencyService service = instance();
+        String hash = IdempotencyService.fingerprint(1L, new BigDecimal("10"), "Deposit");
+        AtomicInteger writes = new AtomicInteger();
+
+        Transaction first = service.execute("deposit", "42", "key-5", hash,
+                () -> written(writes.incrementAndGet())).get(5, TimeUnit.SECONDS);
+        Transaction second = service.execute("deposit", "43", "key-5", hash,
+                () -> written(writes.incrementAndGet())).get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, writes.get());
+        assertNotEquals(first.getId(), second.getId());
+    }
+}
@@ -0,0 +1,39 @@
+package com.ba.transactionservice.service;
+
+import com.ba.transactionservice.model.Transaction;
+import com.ba.transactionservice.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PendingTransferReconcilerTest {
+
+    @Test
+    void requeuesPendingTransfersOlderThanTheMinimumAge() {
+        TransactionRepository transactionRepository = mock(TransactionRepository.class);
+        TransferEngine transferEngine = mock(TransferEngine.class);
+        Transaction first = Transaction.builder().id(1L).build();
+        Transaction second = Transaction.builder().id(2L).build();
+        when(transactionRepository.findPendingTransfers(any(), eq(100))).thenReturn(List.of(first, second));
+        // The second one is still in flight on this instance
+        when(transferEngine.recover(first)).thenReturn(true);
+        when(transferEngine.recover(second)).thenReturn(false);
+
+        LocalDateTime before = LocalDateTime.now().minusMinutes(5);
+        new PendingTransferReconciler(transactionRepository, transferEngine, Duration.ofMinutes(5), 100).reconcile();
+
+        verify(transferEngine).recover(first);
+        verify(transferEngine).recover(second);
+        verify(transactionRepository).findPendingTransfers(
+            argThat(cutoff -> !cutoff.isBefore(before)), eq(100));
+    }
+}
@@ -0,0 +1,323 @@
+package com.ba.transactionservice.service;
+
+import com.ba.transactionservice.dto.TransferRequest;
+import com.ba.transactionservice.model.Transaction;
+import com.ba.transactionservice.repository.TransactionRepository;
+import com.ba.transactionservice.service.AccountClient.OutcomeUnknownException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Lanes run for real; account-service, the database and the transaction manager are stubbed
+class TransferEngineTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("25.00");
+
+    private AccountClient accountClient;
+    private TransactionRepository transactionRepository;
+    private JdbcTemplate jdbcTemplate;
+    private TransferEngine engine;
+
+    // Runs the callback inline, without a transaction manager
+    private static final TransactionTemplate INLINE = new TransactionTemplate() {
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            return action.doInTransaction(new SimpleTransactionStatus());
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        accountClient = mock(AccountClient.class);
+        when(accountClient.resolveAccountId(anyString())).thenReturn(2L);
+
+        AtomicLong ids = new AtomicLong();
+        transactionRepository = mock(TransactionRepository.class);
+        when(transactionRepository.saveAll(anyIterable())).thenAnswer(call -> {
+            Iterable<Transaction> txns = call.getArgument(0);
+            txns.forEach(txn -> {
+                txn.setId(ids.incrementAndGet());
+                txn.setTransactionId("TXN" + txn.getId());
+            });
+            return txns;
+        });
+
+        jdbcTemplate = mock(JdbcTemplate.class);
+        engine = engine(4, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.stop();
+    }
+
+    private TransferEngine engine(int lanes, int batchSize) {
+        TransferEngine engine = new TransferEngine(transactionRepository, jdbcTemplate, INLINE,
+            accountClient, lanes, 10_000, batchSize);
+        engine.start();
+        return engine;
+    }
+
+    private static TransferRequest transfer(long from, BigDecimal amount) {
+        TransferRequest req = new TransferRequest();
+        req.setFromAccountId(from);
+        req.setToAccountNumber("ACC2");
+        req.setAmount(amount);
+        return req;
+    }
+
+    private static Transaction pending(long id) {
+        return Transaction.builder()
+            .id(id)
+            .transactionId("TXN" + id)
+            .amount(AMOUNT)
+            .transactionType(Transaction.TransactionType.TRANSFER)
+            .transactionStatus(Transaction.TransactionStatus.PENDING)
+            .fromAccountId(1L)
+            .toAccountNumber("ACC2")
+            .createdAt(LocalDateTime.now())
+            .build();
+    }
+
+    private static Throwable failure(CompletableFuture<Transaction> result) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        return e.getCause();
+    }
+
+    private void verifyOutcomeWritten() {
+        verify(jdbcTemplate, timeout(5000)).batchUpdate(anyString(), anyCollection(), anyInt(),
+            any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void movesMoneyUnderKeysDerivedFromTheTransactionId() throws Exception {
+        Transaction txn = engine.submit(transfer(1L, AMOUNT)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(Transaction.TransactionStatus.COMPLETED, txn.getTransactionStatus());
+        assertEquals(2L, txn.getToAccountId());
+        verify(accountClient).debit(1L, AMOUNT, txn.getTransactionId() + ":debit");
+        verify(accountClient).credit(2L, AMOUNT, txn.getTransactionId() + ":credit");
+    }
+
+    @Test
+    void rejectedDebitFailsTheTransfer() {
+        doThrow(new RuntimeException("Insufficient funds")).when(accountClient).debit(anyLong(), any(), anyString());
+
+        Throwable cause = failure(engine.submit(transfer(1L, AMOUNT)));
+
+        TransferFailedException failed = assertInstanceOf(TransferFailedException.class, cause);
+        assertEquals("Insufficient funds", failed.getMessage());
+        assertEquals(Transaction.TransactionStatus.FAILED, failed.getTransaction().getTransactionStatus());
+        verify(accountClient, never()).credit(anyLong(), any(), anyString());
+    }
+
+    @Test
+    void rejectedCreditIsRefundedAndFailsTheTransfer() {
+        doThrow(new RuntimeException("Account is not active")).when(accountClient).credit(eq(2L), any(), anyString());
+
+        Throwable cause = failure(engine.submit(transfer(1L, AMOUNT)));
+
+        TransferFailedException failed = assertInstanceOf(TransferFailedException.class, cause);
+        assertEquals(Transaction.TransactionStatus.FAILED, failed.getTransaction().getTransactionStatus());
+        verify(accountClient).credit(1L, AMOUNT, failed.getTransaction().getTransactionId() + ":refund");
+    }
+
+    @Test
+    void unknownCreditOutcomeStaysPending() throws Exception {
+        doThrow(new OutcomeUnknownException("TXN:credit", new RuntimeException("timeout")))
+            .when(accountClient).credit(eq(2L), any(), anyString());
+
+        Transaction txn = engine.submit(transfer(1L, AMOUNT)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(Transaction.TransactionStatus.PENDING, txn.getTransactionStatus());
+        verify(accountClient, never()).credit(eq(1L), any(), anyString());
+    }
+
+    @Test
+    void failedRefundLeavesTheTransferPending() {
+        doThrow(new RuntimeException("Account is not active")).when(accountClient).credit(eq(2L), any(), anyString());
+        doThrow(new OutcomeUnknownException("TXN:refund", new RuntimeException("timeout")))
+            .when(accountClient).credit(eq(1L), any(), anyString());
+
+        Throwable cause = failure(engine.submit(transfer(1L, AMOUNT)));
+
+        TransferFailedException failed = assertInstanceOf(TransferFailedException.class, cause);
+        assertEquals(Transaction.TransactionStatus.PENDING, failed.getTransaction().getTransactionStatus());
+    }
+
+    @Test
+    void recoveredTransferWithAppliedRefundSettlesAsFailed() {
+        when(accountClient.isApplied("TXN7:refund")).thenReturn(true);
+        Transaction txn = pending(7L);
+
+        assertTrue(engine.recover(txn));
+
+        verifyOutcomeWritten();
+        assertEquals(Transaction.TransactionStatus.FAILED, txn.getTransactionStatus());
+        verify(accountClient, never()).debit(anyLong(), any(), anyString());
+        verify(accountClient, never()).credit(anyLong(), any(), anyString());
+    }
+
+    @Test
+    void recoveredTransferIsDrivenAgainUnderItsOriginalKeys() {
+        Transaction txn = pending(8L);
+
+        assertTrue(engine.recover(txn));
+
+        verifyOutcomeWritten();
+        assertEquals(Transaction.TransactionStatus.COMPLETED, txn.getTransactionStatus());
+        verify(accountClient).debit(1L, AMOUNT, "TXN8:debit");
+        verify(accountClient).credit(2L, AMOUNT, "TXN8:credit");
+    }
+
+    @Test
+    void recoverSkipsTransfersAlreadyInFlight() {
+        engine.hold(List.of(pending(9L)));
+
+        assertFalse(engine.recover(pending(9L)));
+    }
+
+    @Test
+    void failureAfterTheRowsAreStoredAnswersPending() throws Exception {
+        doThrow(new RuntimeException("connection reset")).when(jdbcTemplate).batchUpdate(anyString(), anyCollection(),
+            anyInt(), any(ParameterizedPreparedStatementSetter.class));
+
+        Transaction txn = engine.submit(transfer(1L, AMOUNT)).get(5, TimeUnit.SECONDS);
+
+        // The money moved but the outcome was not recorded: the row stays PENDING for the reconciler
+        assertEquals(Transaction.TransactionStatus.PENDING, txn.getTransactionStatus());
+        verify(accountClient).debit(1L, AMOUNT, txn.getTransactionId() + ":debit");
+        assertTrue(engine.recover(txn), "no longer held as in flight");
+    }
+
+    @Test
+    void failedInsertFailsWithAPlainError() {
+        when(transactionRepository.saveAll(anyIterable())).thenThrow(new RuntimeException("database is down"));
+
+        Throwable cause = failure(engine.submit(transfer(1L, AMOUNT)));
+
+        // Not a TransferFailedException, so the Idempotency-Key is released and a retry is safe
+        assertFalse(cause instanceof TransferFailedException);
+        verify(accountClient, never()).debit(anyLong(), any(), anyString());
+    }
+
+    @Test
+    void debitsOfOneAccountRunInArrivalOrder() throws Exception {
+        engine.stop();
+        engine = engine(4, 10);
+        List<BigDecimal> debited = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(call -> debited.add(call.getArgument(1))).when(accountClient).debit(eq(1L), any(), anyString());
+
+        List<CompletableFuture<Transaction>> results = new ArrayList<>();
+        List<BigDecimal> submitted = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            BigDecimal amount = BigDecimal.valueOf(i);
+            submitted.add(amount);
+            results.add(engine.submit(transfer(1L, amount)));
+            // Other accounts share the lanes and interleave with account 1
+            results.add(engine.submit(transfer(100L + i, amount)));
+        }
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        assertEquals(submitted, debited);
+    }
+
+    /**
+     * Offered-load benchmark: for 1k, 10k and 100k transfers/sec, submits two seconds' worth of
+     * transfers at that rate, either spread over 100k source accounts (uniform) or all from
+     * 10 accounts (hot), against an account-service stub that takes 50 microseconds per call.
+     * Prints the achieved throughput, latency percentiles and queue-full rejections. Run with
+     * {@code mvn test -Dtest=TransferEngineTest -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark() throws Exception {
+        doAnswer(call -> { LockSupport.parkNanos(50_000); return null; })
+            .when(accountClient).debit(anyLong(), any(), anyString());
+        doAnswer(call -> { LockSupport.parkNanos(50_000); return null; })
+            .when(accountClient).credit(anyLong(), any(), anyString());
+
+        for (int rate : new int[] { 1_000, 10_000, 100_000 }) {
+            for (String distribution : new String[] { "uniform", "hot" }) {
+                engine.stop();
+                engine = engine(16, 100);
+                System.out.println(run(rate, distribution.equals("hot") ? 10 : 100_000, distribution));
+            }
+        }
+    }
+
+    private String run(int rate, int accounts, String distribution) throws Exception {
+        int count = rate * 2;
+        long[] latencies = new long[count];
+        AtomicInteger rejected = new AtomicInteger();
+        List<CompletableFuture<Transaction>> results = new ArrayList<>(count);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            long due = start + i * 1_000_000_000L / rate;
+            while (System.nanoTime() < due) {
+                Thread.onSpinWait();
+            }
+            int index = i;
+            long submitted = System.nanoTime();
+            results.add(engine.submit(transfer(1L + i % accounts, AMOUNT)).whenComplete((txn, e) -> {
+                latencies[index] = System.nanoTime() - submitted;
+                if (e != null) {
+                    rejected.incrementAndGet();
+                }
+            }));
+        }
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+            .exceptionally(e -> null)
+            .get(5, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] sorted = Arrays.stream(latencies).sorted().toArray();
+        return String.format("%,7d/s offered %-7s: %,9.0f/s done, p50 %s, p99 %s, max %s, rejected %d",
+            rate, distribution, (count - rejected.get()) / seconds,
+            millis(sorted[count / 2]), millis(sorted[count * 99 / 100]), millis(sorted[count - 1]), rejected.get());
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2fms", nanos / 1e6);
+    }
+}